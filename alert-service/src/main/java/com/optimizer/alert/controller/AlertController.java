@@ -1,34 +1,108 @@
 package com.optimizer.alert.controller;
 
+import com.optimizer.alert.dispatch.AlertDispatcher;
+import com.optimizer.alert.dispatch.AlertQueueFullException;
+import com.optimizer.alert.notification.AlertSuppressor;
 import com.optimizer.alert.notification.NotificationService;
+import com.optimizer.alert.stream.AlertStream;
 import com.optimizer.alert.dto.ApiResponse;
-import com.optimizer.alert.model.AlertEvent;
-import com.optimizer.alert.repository.AlertEventRepository;
+import com.optimizer.alert.history.AlertHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/alerts")
 public class AlertController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private NotificationService notificationService;
     @Autowired
-    private AlertEventRepository alertEventRepository;
+    private AlertHistoryService alertHistoryService;
+    @Autowired
+    private AlertDispatcher alertDispatcher;
+    @Autowired
+    private AlertSuppressor alertSuppressor;
+    @Autowired
+    private AlertStream alertStream;
 
     @PostMapping("/send")
     public ResponseEntity<ApiResponse> sendAlert(@RequestBody NotificationService.AlertRequest request) {
-        notificationService.sendAlert(request);
-        return ResponseEntity.ok(ApiResponse.success("Alert sent successfully"));
+        switch (notificationService.sendAlert(request)) {
+            case DUPLICATE:
+                return ResponseEntity.ok(ApiResponse.success("Alert suppressed as a duplicate"));
+            case RATE_LIMITED:
+                return ResponseEntity.ok(ApiResponse.success("Alert suppressed by the recipient rate limit"));
+            default:
+                return ResponseEntity.accepted().body(ApiResponse.success("Alert queued"));
+        }
+    }
+
+    @GetMapping("/suppression/stats")
+    public ResponseEntity<ApiResponse> suppressionStats() {
+        return ResponseEntity.ok(ApiResponse.success(alertSuppressor.getStats()));
+    }
+
+    @GetMapping("/dispatch/stats")
+    public ResponseEntity<ApiResponse> dispatchStats() {
+        return ResponseEntity.ok(ApiResponse.success(alertDispatcher.getStats()));
     }
 
     @GetMapping("/recent")
-    public ResponseEntity<ApiResponse> recent() {
-        return ResponseEntity.ok(ApiResponse.success(alertEventRepository.findAll()));
+    public ResponseEntity<ApiResponse> recent(@RequestParam(required = false) String severity,
+                                              @RequestParam(required = false) Boolean highlight,
+                                              @RequestParam(required = false) String recipient,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String cursor,
+                                              WebRequest webRequest) {
+        if (webRequest.checkNotModified(alertStream.etag())) {
+            return null;
+        }
+        AlertHistoryService.AlertPage page = alertHistoryService.getRecent(severity, highlight, recipient, limit, cursor);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(ApiResponse.success(page.getItems()));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return alertStream.subscribe();
+    }
+
+    @GetMapping("/stream/stats")
+    public ResponseEntity<ApiResponse> streamStats() {
+        return ResponseEntity.ok(ApiResponse.success(alertStream.getStats()));
+    }
+
+    @GetMapping("/counts")
+    public ResponseEntity<ApiResponse> counts(@RequestParam(defaultValue = "24") int hours) {
+        return ResponseEntity.ok(ApiResponse.success(alertHistoryService.countBySeverity(hours)));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+    }
+
+    @ExceptionHandler(AlertQueueFullException.class)
+    public ResponseEntity<ApiResponse> queueFull(AlertQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error(e.getMessage()));
     }
 }
@@ -0,0 +1,62 @@
+package com.optimizer.alert.controller;
+
+import com.optimizer.alert.dto.ApiResponse;
+import com.optimizer.alert.security.CachingAuthenticationProvider;
+import com.optimizer.alert.security.TokenService;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/alerts/auth")
+public class AuthController {
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+
+    @Data
+    public static class LoginRequest {
+        private String username;
+        private String password;
+    }
+
+    @PostMapping("/login")
+    public ResponseEntity<ApiResponse> login(@RequestBody LoginRequest request) {
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(request.getUsername(), request.getPassword()));
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.error("Invalid credentials"));
+        }
+        return ResponseEntity.ok(ApiResponse.success(tokenService.issue(authentication)));
+    }
+
+    /**
+     * Issues a short-lived token for opening {@code /alerts/stream} from a
+     * browser, which cannot set headers on an {@code EventSource}.
+     */
+    @PostMapping("/stream-token")
+    public ResponseEntity<ApiResponse> streamToken(Authentication authentication) {
+        return ResponseEntity.ok(ApiResponse.success(tokenService.issueStreamToken(authentication)));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse> stats() {
+        return ResponseEntity.ok(ApiResponse.success(cachingAuthenticationProvider.getStats()));
+    }
+}
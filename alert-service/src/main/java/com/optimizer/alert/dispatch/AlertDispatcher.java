@@ -0,0 +1,358 @@
+package com.optimizer.alert.dispatch;
+
+import com.optimizer.alert.email.EmailService;
+import com.optimizer.alert.model.AlertEvent;
+import com.optimizer.alert.repository.AlertEventRepository;
+import com.optimizer.alert.stream.AlertStream;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends alerts off the request thread. Accepted alerts wait in a bounded
+ * queue; a collector thread drains them for up to {@code digest-window-ms},
+ * persists the batch with one {@code saveAll}, groups it by recipient and
+ * hands each recipient's digest to a worker pool, so an alert storm becomes
+ * one email per recipient per window. Failed sends are retried with
+ * exponential backoff. When the worker pool's queue is full the collector
+ * sends itself, which fills the alert queue and pushes back on producers.
+ *
+ * <p>A batch that cannot be saved is still emailed, and its save is retried
+ * by the collector with the same backoff, up to {@code persist-max-attempts}
+ * times. At most {@code persist-retry-capacity} alerts wait for a retry;
+ * alerts beyond that, or out of attempts, are counted as
+ * {@code persistLost}.
+ */
+@Slf4j
+@Component
+public class AlertDispatcher {
+
+    @Autowired
+    private EmailService emailService;
+    @Autowired
+    private AlertEventRepository alertEventRepository;
+    @Autowired
+    private AlertStream alertStream;
+
+    @Value("${alerts.dispatch.capacity:10000}")
+    private int capacity;
+    @Value("${alerts.dispatch.workers:4}")
+    private int workers;
+    @Value("${alerts.dispatch.digest-window-ms:2000}")
+    private long digestWindowMs;
+    @Value("${alerts.dispatch.max-batch:500}")
+    private int maxBatch;
+    @Value("${alerts.dispatch.max-digest-size:50}")
+    private int maxDigestSize;
+    @Value("${alerts.dispatch.max-attempts:3}")
+    private int maxAttempts;
+    @Value("${alerts.dispatch.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+    @Value("${alerts.dispatch.persist-max-attempts:5}")
+    private int persistMaxAttempts;
+    @Value("${alerts.dispatch.persist-retry-capacity:10000}")
+    private int persistRetryCapacity;
+
+    private BlockingQueue<AlertEvent> queue;
+    private ThreadPoolExecutor senders;
+    private Thread collector;
+    private volatile boolean running;
+    // Batches waiting for another save attempt; only touched by the collector.
+    private final Deque<UnsavedBatch> unsaved = new ArrayDeque<>();
+    private volatile int unsavedAlerts;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong persistFailures = new AtomicLong();
+    private final AtomicLong persistRetries = new AtomicLong();
+    private final AtomicLong persistLost = new AtomicLong();
+    private final AtomicLong emailsSent = new AtomicLong();
+    private final AtomicLong alertsDelivered = new AtomicLong();
+    private final AtomicLong alertsFailed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong totalSendMillis = new AtomicLong();
+    private volatile long lastSendMillis;
+    private volatile long maxSendMillis;
+
+    private record UnsavedBatch(List<AlertEvent> alerts, int attempts, long retryAt) {}
+
+    @Data
+    public static class Stats {
+        private int depth;
+        private int capacity;
+        private int activeSenders;
+        private int pendingDigests;
+        private long accepted;
+        private long rejected;
+        private long persisted;
+        private long persistFailures; // failed save attempts, counted per alert
+        private long persistRetries;
+        private int pendingPersist;
+        private long persistLost;
+        private long emailsSent;
+        private long alertsDelivered;
+        private long alertsFailed;
+        private long retries;
+        private long lastSendMillis;
+        private long maxSendMillis;
+        private double avgSendMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        AtomicInteger threadId = new AtomicInteger();
+        senders = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 4),
+                r -> {
+                    Thread t = new Thread(r, "alert-sender-" + threadId.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        running = true;
+        collector = new Thread(this::run, "alert-dispatcher");
+        collector.setDaemon(true);
+        collector.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        collector.join(TimeUnit.SECONDS.toMillis(30));
+        senders.shutdown();
+        if (!senders.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Alert senders did not finish within 30s");
+        }
+    }
+
+    /**
+     * Queues an alert without blocking.
+     *
+     * @throws AlertQueueFullException if the queue is full
+     */
+    public void submit(AlertEvent event) {
+        if (!queue.offer(event)) {
+            rejected.incrementAndGet();
+            throw new AlertQueueFullException();
+        }
+        accepted.incrementAndGet();
+    }
+
+    public Stats getStats() {
+        Stats s = new Stats();
+        s.setDepth(queue.size());
+        s.setCapacity(capacity);
+        s.setActiveSenders(senders.getActiveCount());
+        s.setPendingDigests(senders.getQueue().size());
+        s.setAccepted(accepted.get());
+        s.setRejected(rejected.get());
+        s.setPersisted(persisted.get());
+        s.setPersistFailures(persistFailures.get());
+        s.setPersistRetries(persistRetries.get());
+        s.setPendingPersist(unsavedAlerts);
+        s.setPersistLost(persistLost.get());
+        long sent = emailsSent.get();
+        s.setEmailsSent(sent);
+        s.setAlertsDelivered(alertsDelivered.get());
+        s.setAlertsFailed(alertsFailed.get());
+        s.setRetries(retries.get());
+        s.setLastSendMillis(lastSendMillis);
+        s.setMaxSendMillis(maxSendMillis);
+        s.setAvgSendMillis(sent > 0 ? (double) totalSendMillis.get() / sent : 0.0);
+        return s;
+    }
+
+    private void run() {
+        List<AlertEvent> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                fill(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                dispatch(batch);
+                batch.clear();
+            }
+            retryUnsaved(running);
+        }
+        retryUnsaved(false);
+    }
+
+    private void fill(List<AlertEvent> batch) throws InterruptedException {
+        AlertEvent first = queue.poll(digestWindowMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(running ? digestWindowMs : 0);
+        while (batch.size() < maxBatch) {
+            queue.drainTo(batch, maxBatch - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatch || remaining <= 0) {
+                return;
+            }
+            AlertEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void dispatch(List<AlertEvent> batch) {
+        if (!persist(batch)) {
+            scheduleRetry(List.copyOf(batch), 1);
+        }
+        Map<String, List<AlertEvent>> byRecipient = new LinkedHashMap<>();
+        for (AlertEvent event : batch) {
+            byRecipient.computeIfAbsent(event.getRecipient(), k -> new ArrayList<>()).add(event);
+        }
+        byRecipient.forEach((recipient, alerts) -> {
+            for (int from = 0; from < alerts.size(); from += maxDigestSize) {
+                List<AlertEvent> digest = List.copyOf(alerts.subList(from, Math.min(from + maxDigestSize, alerts.size())));
+                senders.execute(() -> deliver(recipient, digest));
+            }
+        });
+    }
+
+    private boolean persist(List<AlertEvent> alerts) {
+        List<AlertEvent> saved;
+        try {
+            saved = alertEventRepository.saveAll(alerts);
+        } catch (RuntimeException e) {
+            // The rolled-back insert may have assigned ids; clear them so a retry inserts again.
+            alerts.forEach(alert -> alert.setId(null));
+            persistFailures.addAndGet(alerts.size());
+            log.error("Could not persist {} alert events: {}", alerts.size(), e.getMessage());
+            return false;
+        }
+        persisted.addAndGet(saved.size());
+        alertStream.publish(saved);
+        return true;
+    }
+
+    private void scheduleRetry(List<AlertEvent> alerts, int attempts) {
+        if (attempts >= persistMaxAttempts) {
+            lose(alerts, "after " + attempts + " attempts");
+            return;
+        }
+        if (unsavedAlerts + alerts.size() > persistRetryCapacity) {
+            lose(alerts, "because the retry buffer is full");
+            return;
+        }
+        long backoff = TimeUnit.MILLISECONDS.toNanos(retryBackoffMs << (attempts - 1));
+        unsaved.addLast(new UnsavedBatch(alerts, attempts, System.nanoTime() + backoff));
+        unsavedAlerts += alerts.size();
+    }
+
+    /**
+     * Retries the saves that are due. With {@code waitForBackoff} false, as on
+     * shutdown, every pending batch gets one last attempt.
+     */
+    private void retryUnsaved(boolean waitForBackoff) {
+        long now = System.nanoTime();
+        for (int i = unsaved.size(); i > 0; i--) {
+            UnsavedBatch batch = unsaved.pollFirst();
+            if (waitForBackoff && batch.retryAt() - now > 0) {
+                unsaved.addLast(batch);
+                continue;
+            }
+            unsavedAlerts -= batch.alerts().size();
+            persistRetries.incrementAndGet();
+            if (!persist(batch.alerts())) {
+                if (waitForBackoff) {
+                    scheduleRetry(batch.alerts(), batch.attempts() + 1);
+                } else {
+                    lose(batch.alerts(), "on shutdown");
+                }
+            }
+        }
+    }
+
+    private void lose(List<AlertEvent> alerts, String reason) {
+        persistLost.addAndGet(alerts.size());
+        log.error("Giving up on persisting {} alert events {}", alerts.size(), reason);
+    }
+
+    private void deliver(String recipient, List<AlertEvent> alerts) {
+        String subject = subject(alerts);
+        String body = body(alerts);
+        for (int attempt = 1; ; attempt++) {
+            long started = System.currentTimeMillis();
+            try {
+                emailService.sendEmail(recipient, subject, body);
+                recordSend(System.currentTimeMillis() - started);
+                alertsDelivered.addAndGet(alerts.size());
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    alertsFailed.addAndGet(alerts.size());
+                    log.error("Giving up on {} alerts for {} after {} attempts: {}",
+                            alerts.size(), recipient, attempt, e.getMessage());
+                    return;
+                }
+                retries.incrementAndGet();
+                long backoff = retryBackoffMs << (attempt - 1);
+                log.warn("Alert email to {} failed, retrying in {} ms: {}", recipient, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    alertsFailed.addAndGet(alerts.size());
+                    return;
+                }
+            }
+        }
+    }
+
+    private void recordSend(long millis) {
+        emailsSent.incrementAndGet();
+        totalSendMillis.addAndGet(millis);
+        lastSendMillis = millis;
+        if (millis > maxSendMillis) {
+            maxSendMillis = millis;
+        }
+    }
+
+    private static String subject(List<AlertEvent> alerts) {
+        if (alerts.size() == 1) {
+            return "Cloud Optimizer Alert: " + alerts.get(0).getSeverity();
+        }
+        String highest = alerts.stream().anyMatch(a -> Boolean.TRUE.equals(a.getHighlight())) ? " (includes HIGH/CRITICAL)" : "";
+        return "Cloud Optimizer Alert digest: " + alerts.size() + " alerts" + highest;
+    }
+
+    private static String body(List<AlertEvent> alerts) {
+        if (alerts.size() == 1) {
+            return alerts.get(0).getMessage();
+        }
+        StringBuilder body = new StringBuilder();
+        for (AlertEvent alert : alerts) {
+            body.append('[').append(alert.getSeverity()).append("] ")
+                    .append(alert.getCreatedAt()).append(' ')
+                    .append(alert.getMessage()).append('\n');
+        }
+        return body.toString();
+    }
+}
@@ -0,0 +1,9 @@
+package com.optimizer.alert.dispatch;
+
+public class AlertQueueFullException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public AlertQueueFullException() {
+        super("Alert queue full, retry later");
+    }
+}
@@ -0,0 +1,111 @@
+package com.optimizer.alert.history;
+
+import com.optimizer.alert.model.AlertEvent;
+import com.optimizer.alert.repository.AlertEventRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class AlertHistoryService {
+
+    @Autowired
+    private AlertEventRepository alertEventRepository;
+
+    @Value("${alerts.query.default-limit:100}")
+    private int defaultLimit;
+    @Value("${alerts.query.max-limit:1000}")
+    private int maxLimit;
+    @Value("${alerts.query.max-count-hours:720}")
+    private int maxCountHours;
+
+    @Data
+    @AllArgsConstructor
+    public static class AlertPage {
+        private List<AlertEvent> items;
+        private String nextCursor;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class SeverityCounts {
+        private int hours;
+        private long total;
+        private Map<String, Long> counts;
+    }
+
+    /**
+     * Returns one newest-first page of alerts, optionally filtered by
+     * severity, highlight and recipient. The cursor is the opaque position of
+     * the last row of the previous page, so each page is a range scan on a
+     * {@code created_at} index rather than an offset.
+     */
+    public AlertPage getRecent(String severity, Boolean highlight, String recipient, Integer limit, String cursor) {
+        int pageSize = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+        LocalDateTime beforeCreatedAt = null;
+        Long beforeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            beforeCreatedAt = LocalDateTime.parse(position[0]);
+            beforeId = Long.parseLong(position[1]);
+        }
+        List<AlertEvent> items = alertEventRepository.findPage(blankToNull(severity), highlight, blankToNull(recipient),
+                beforeCreatedAt, beforeId, PageRequest.ofSize(pageSize + 1));
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            nextCursor = encodeCursor(items.get(pageSize - 1));
+        }
+        return new AlertPage(items, nextCursor);
+    }
+
+    /** Alert counts per severity over the last {@code hours}, grouped in MySQL. */
+    public SeverityCounts countBySeverity(int hours) {
+        if (hours < 1 || hours > maxCountHours) {
+            throw new IllegalArgumentException("hours must be between 1 and " + maxCountHours);
+        }
+        Map<String, Long> counts = new TreeMap<>();
+        long total = 0;
+        for (Object[] row : alertEventRepository.countBySeveritySince(LocalDateTime.now().minusHours(hours))) {
+            long count = ((Number) row[1]).longValue();
+            counts.merge(row[0] == null ? "UNKNOWN" : (String) row[0], count, Long::sum);
+            total += count;
+        }
+        return new SeverityCounts(hours, total, counts);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    static String encodeCursor(AlertEvent last) {
+        String position = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] position = decoded.split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
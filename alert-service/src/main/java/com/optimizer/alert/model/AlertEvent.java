@@ -7,10 +7,16 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "alert_events")
+@Table(name = "alert_events",
+        indexes = {
+                @Index(name = "idx_alert_events_created_at", columnList = "created_at"),
+                @Index(name = "idx_alert_events_recipient_created", columnList = "recipient, created_at"),
+                @Index(name = "idx_alert_events_severity_created", columnList = "severity, created_at")
+        })
 public class AlertEvent {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alert_events_seq")
+    @SequenceGenerator(name = "alert_events_seq", sequenceName = "alert_events_seq", allocationSize = 50)
     private Long id;
     private String recipient;
     private String message;
@@ -0,0 +1,271 @@
+package com.optimizer.alert.notification;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Decides whether an alert is worth sending. An alert is a duplicate when
+ * the same (recipient, severity, incident) was admitted within
+ * {@code alerts.dedup.window}. The incident is the caller's incident key
+ * when one is given, otherwise a fingerprint of the message that ignores
+ * case, whitespace and measurement values, so "vm-12 CPU at 91%" and
+ * "vm-12 CPU at 93%" count as one incident while "vm-34 CPU at 91%" does
+ * not. Recipients are additionally limited by a token bucket. Both tables are
+ * LRU maps bounded by {@code max-entries} / {@code max-recipients}.
+ */
+@Component
+public class AlertSuppressor {
+
+    public enum Decision { ADMITTED, DUPLICATE, RATE_LIMITED }
+
+    @Value("${alerts.dedup.enabled:true}")
+    private boolean dedupEnabled;
+    @Value("${alerts.dedup.window:PT10M}")
+    private Duration window;
+    @Value("${alerts.dedup.max-entries:10000}")
+    private int maxEntries;
+    @Value("${alerts.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+    @Value("${alerts.rate-limit.burst:20}")
+    private int burst;
+    @Value("${alerts.rate-limit.per-minute:10}")
+    private double perMinute;
+    @Value("${alerts.rate-limit.max-recipients:10000}")
+    private int maxRecipients;
+    @Value("${alerts.rate-limit.exempt-severities:CRITICAL}")
+    private Set<String> exemptSeverities;
+
+    private final Object lock = new Object();
+    private Map<Key, Seen> seen;
+    private Map<String, Bucket> buckets;
+
+    private long admitted;
+    private long duplicates;
+    private long rateLimited;
+    private long evictions;
+
+    private static final Set<String> UNITS = Set.of(
+            "ms", "s", "sec", "secs", "min", "mins", "h", "hr", "hrs",
+            "b", "kb", "mb", "gb", "tb", "kib", "mib", "gib", "tib",
+            "bps", "kbps", "mbps", "gbps", "iops", "rps", "ops");
+
+    private record Key(String recipient, String severity, String incidentKey, long fingerprint) {}
+
+    private static class Seen {
+        long admittedAt;
+        long suppressed;
+    }
+
+    private static class Bucket {
+        double tokens;
+        long refilledAt;
+    }
+
+    @Data
+    public static class Stats {
+        private int trackedIncidents;
+        private int trackedRecipients;
+        private long admitted;
+        private long suppressedDuplicates;
+        private long suppressedRateLimited;
+        private long evictions;
+    }
+
+    @PostConstruct
+    void init() {
+        exemptSeverities = exemptSeverities.stream().map(String::toUpperCase).collect(Collectors.toSet());
+        seen = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Seen> eldest) {
+                if (size() > maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        buckets = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > maxRecipients;
+            }
+        };
+    }
+
+    /**
+     * Records the alert as admitted unless it is a duplicate or the
+     * recipient is over its rate. Suppressed alerts consume nothing.
+     */
+    public Decision admit(String recipient, String severity, String incidentKey, String message) {
+        Key key = key(recipient, severity, incidentKey, message);
+        long now = System.nanoTime();
+        synchronized (lock) {
+            if (dedupEnabled) {
+                Seen s = seen.get(key);
+                if (s != null && now - s.admittedAt < window.toNanos()) {
+                    s.suppressed++;
+                    duplicates++;
+                    return Decision.DUPLICATE;
+                }
+            }
+            if (rateLimitEnabled && !isExempt(severity) && !takeToken(recipient, now)) {
+                rateLimited++;
+                return Decision.RATE_LIMITED;
+            }
+            if (dedupEnabled) {
+                Seen s = new Seen();
+                s.admittedAt = now;
+                seen.put(key, s);
+            }
+            admitted++;
+            return Decision.ADMITTED;
+        }
+    }
+
+    /**
+     * Undoes {@link #admit} for an alert that could not be queued, so a
+     * retry is not reported as a duplicate.
+     */
+    public void revoke(String recipient, String severity, String incidentKey, String message) {
+        Key key = key(recipient, severity, incidentKey, message);
+        synchronized (lock) {
+            if (dedupEnabled) {
+                seen.remove(key);
+            }
+            if (rateLimitEnabled && !isExempt(severity)) {
+                Bucket b = buckets.get(recipient);
+                if (b != null) {
+                    b.tokens = Math.min(burst, b.tokens + 1);
+                }
+            }
+            admitted--;
+        }
+    }
+
+    public Stats getStats() {
+        Stats s = new Stats();
+        synchronized (lock) {
+            s.setTrackedIncidents(seen.size());
+            s.setTrackedRecipients(buckets.size());
+            s.setAdmitted(admitted);
+            s.setSuppressedDuplicates(duplicates);
+            s.setSuppressedRateLimited(rateLimited);
+            s.setEvictions(evictions);
+        }
+        return s;
+    }
+
+    private boolean takeToken(String recipient, long now) {
+        Bucket b = buckets.get(recipient);
+        if (b == null) {
+            b = new Bucket();
+            b.tokens = burst;
+            b.refilledAt = now;
+            buckets.put(recipient, b);
+        } else {
+            double minutes = (double) (now - b.refilledAt) / TimeUnit.MINUTES.toNanos(1);
+            b.tokens = Math.min(burst, b.tokens + minutes * perMinute);
+            b.refilledAt = now;
+        }
+        if (b.tokens < 1) {
+            return false;
+        }
+        b.tokens -= 1;
+        return true;
+    }
+
+    private boolean isExempt(String severity) {
+        return severity != null && exemptSeverities.contains(severity.toUpperCase());
+    }
+
+    private static Key key(String recipient, String severity, String incidentKey, String message) {
+        String upperSeverity = severity == null ? null : severity.toUpperCase();
+        if (incidentKey != null && !incidentKey.isBlank()) {
+            return new Key(recipient, upperSeverity, incidentKey.trim(), 0);
+        }
+        return new Key(recipient, upperSeverity, null, fingerprint(message));
+    }
+
+    /**
+     * 64-bit FNV-1a over the message, lower-cased, with whitespace runs
+     * collapsed and every measurement value (a number followed by {@code %}
+     * or a unit such as {@code ms} or {@code GB}) replaced by {@code #}.
+     * Numbers that are part of an identifier ("vm-12", "node3") or carry no
+     * unit are kept, so different resources stay different incidents.
+     */
+    static long fingerprint(String message) {
+        long h = 0xcbf29ce484222325L;
+        if (message == null) {
+            return h;
+        }
+        String text = message.toLowerCase(Locale.ROOT);
+        char prev = 0;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int next = i + 1;
+            if (Character.isDigit(c) && !isIdentifierChar(prev)) {
+                int end = numberEnd(text, i);
+                if (isMeasurement(text, end)) {
+                    c = '#';
+                    next = end < text.length() && text.charAt(end) == ' ' ? end + 1 : end;
+                }
+            } else if (Character.isWhitespace(c)) {
+                c = ' ';
+            }
+            i = next;
+            if (c == ' ' && prev == ' ') {
+                continue;
+            }
+            prev = c;
+            h ^= c;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.';
+    }
+
+    /** End of the number starting at {@code start}, including decimal and thousands separators. */
+    private static int numberEnd(String text, int start) {
+        int i = start;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isDigit(c)) {
+                i++;
+            } else if ((c == '.' || c == ',') && i + 1 < text.length() && Character.isDigit(text.charAt(i + 1))) {
+                i += 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isMeasurement(String text, int end) {
+        int i = end;
+        if (i < text.length() && text.charAt(i) == ' ') {
+            i++;
+        }
+        if (i < text.length() && text.charAt(i) == '%') {
+            return true;
+        }
+        int unitEnd = i;
+        while (unitEnd < text.length() && Character.isLetter(text.charAt(unitEnd))) {
+            unitEnd++;
+        }
+        return unitEnd > i && UNITS.contains(text.substring(i, unitEnd));
+    }
+}
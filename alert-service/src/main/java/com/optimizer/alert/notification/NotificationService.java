@@ -1,8 +1,8 @@
 package com.optimizer.alert.notification;
 
-import com.optimizer.alert.email.EmailService;
+import com.optimizer.alert.dispatch.AlertDispatcher;
+import com.optimizer.alert.dispatch.AlertQueueFullException;
 import com.optimizer.alert.model.AlertEvent;
-import com.optimizer.alert.repository.AlertEventRepository;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -11,20 +11,31 @@ import org.springframework.stereotype.Service;
 public class NotificationService {
 
     @Autowired
-    private EmailService emailService;
+    private AlertDispatcher alertDispatcher;
     @Autowired
-    private AlertEventRepository alertEventRepository;
+    private AlertSuppressor alertSuppressor;
 
     @Data
     public static class AlertRequest {
         private String recipient;
         private String message;
         private String severity; // LOW, MEDIUM, CRITICAL
+        private String incidentKey; // optional, overrides the message fingerprint for dedup
     }
 
-    public void sendAlert(AlertRequest request) {
-        String subject = "Cloud Optimizer Alert: " + request.getSeverity();
-        emailService.sendEmail(request.getRecipient(), subject, request.getMessage());
+    /**
+     * Queues the alert for asynchronous delivery and persistence unless
+     * {@link AlertSuppressor} drops it as a duplicate or over the
+     * recipient's rate; suppressed alerts are neither sent nor stored.
+     *
+     * @throws AlertQueueFullException if the dispatch queue is full
+     */
+    public AlertSuppressor.Decision sendAlert(AlertRequest request) {
+        AlertSuppressor.Decision decision = alertSuppressor.admit(
+                request.getRecipient(), request.getSeverity(), request.getIncidentKey(), request.getMessage());
+        if (decision != AlertSuppressor.Decision.ADMITTED) {
+            return decision;
+        }
         AlertEvent e = new AlertEvent();
         e.setRecipient(request.getRecipient());
         e.setMessage(request.getMessage());
@@ -32,6 +43,13 @@ public class NotificationService {
         boolean highlight = "HIGH".equalsIgnoreCase(request.getSeverity()) || "CRITICAL".equalsIgnoreCase(request.getSeverity());
         e.setHighlight(highlight);
         e.setCreatedAt(java.time.LocalDateTime.now());
-        alertEventRepository.save(e);
+        try {
+            alertDispatcher.submit(e);
+        } catch (AlertQueueFullException ex) {
+            alertSuppressor.revoke(request.getRecipient(), request.getSeverity(), request.getIncidentKey(),
+                    request.getMessage());
+            throw ex;
+        }
+        return decision;
     }
 }
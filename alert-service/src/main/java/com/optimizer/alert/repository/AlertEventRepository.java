@@ -1,7 +1,34 @@
 package com.optimizer.alert.repository;
 
 import com.optimizer.alert.model.AlertEvent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface AlertEventRepository extends JpaRepository<AlertEvent, Long> {
+
+    /**
+     * Newest-first keyset page of alerts. Pass a null {@code beforeCreatedAt}
+     * for the first page; null filters match everything.
+     */
+    @Query("SELECT a FROM AlertEvent a WHERE (:severity IS NULL OR a.severity = :severity)"
+            + " AND (:highlight IS NULL OR a.highlight = :highlight)"
+            + " AND (:recipient IS NULL OR a.recipient = :recipient)"
+            + " AND (:beforeCreatedAt IS NULL OR a.createdAt < :beforeCreatedAt"
+            + " OR (a.createdAt = :beforeCreatedAt AND a.id < :beforeId))"
+            + " ORDER BY a.createdAt DESC, a.id DESC")
+    List<AlertEvent> findPage(@Param("severity") String severity,
+                              @Param("highlight") Boolean highlight,
+                              @Param("recipient") String recipient,
+                              @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                              @Param("beforeId") Long beforeId,
+                              Pageable pageable);
+
+    /** Rows of {@code [severity, count]} for alerts created at or after {@code since}. */
+    @Query("SELECT a.severity, COUNT(a) FROM AlertEvent a WHERE a.createdAt >= :since GROUP BY a.severity")
+    List<Object[]> countBySeveritySince(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,61 @@
+package com.optimizer.alert.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Authenticates {@code Authorization: Bearer} requests from the token alone.
+ * On {@code streamPath} only, a stream token may instead be passed as the
+ * {@code access_token} query parameter, for browser {@code EventSource}
+ * clients. Requests without a token fall through to HTTP Basic. Not a bean,
+ * so it only runs inside the security filter chain.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+    private static final String ACCESS_TOKEN = "access_token";
+
+    private final TokenService tokenService;
+    private final String streamPath;
+
+    public TokenAuthenticationFilter(TokenService tokenService, String streamPath) {
+        this.tokenService = tokenService;
+        this.streamPath = streamPath;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        Authentication authentication = null;
+        boolean tokenPresented = false;
+        if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            tokenPresented = true;
+            authentication = tokenService.verify(header.substring(BEARER.length()).trim());
+        } else if (request.getParameter(ACCESS_TOKEN) != null
+                && request.getRequestURI().equals(request.getContextPath() + streamPath)) {
+            tokenPresented = true;
+            authentication = tokenService.verifyStreamToken(request.getParameter(ACCESS_TOKEN));
+        }
+        if (tokenPresented) {
+            if (authentication == null) {
+                response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authentication);
+            SecurityContextHolder.setContext(context);
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,181 @@
+package com.optimizer.alert.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Issues and verifies HS256 JSON Web Tokens signed with a locally held key,
+ * so bearer requests are authenticated without a password hash or a user
+ * lookup. Only the fixed HS256 header is accepted. Without
+ * {@code security.token.secret} a random key is generated at startup, which
+ * invalidates outstanding tokens on restart; set the same secret on every
+ * service that should accept the same tokens.
+ *
+ * <p>Stream tokens carry {@code "scope": "stream"} and live for
+ * {@code security.token.stream-ttl}. A browser {@code EventSource} cannot
+ * send headers, so they are passed in the URL; the scope keeps such a token,
+ * which may end up in access logs, from being used for anything but opening
+ * the alert stream, and regular tokens are not accepted there.
+ */
+@Slf4j
+@Component
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String STREAM_SCOPE = "stream";
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${security.token.secret:}")
+    private String secret;
+    @Value("${security.token.ttl:PT15M}")
+    private Duration ttl;
+    @Value("${security.token.stream-ttl:PT1M}")
+    private Duration streamTtl;
+    @Value("${security.token.issuer:cloud-optimizer}")
+    private String issuer;
+
+    private SecretKeySpec key;
+
+    @Data
+    @AllArgsConstructor
+    public static class IssuedToken {
+        private String accessToken;
+        private String tokenType;
+        private long expiresIn;
+    }
+
+    @PostConstruct
+    public void init() {
+        byte[] material;
+        if (secret == null || secret.isBlank()) {
+            material = new byte[32];
+            new SecureRandom().nextBytes(material);
+            log.warn("security.token.secret is not set; using a random key, tokens will not survive a restart");
+        } else {
+            material = secret.getBytes(StandardCharsets.UTF_8);
+            if (material.length < 32) {
+                throw new IllegalStateException("security.token.secret must be at least 32 bytes");
+            }
+        }
+        key = new SecretKeySpec(material, ALGORITHM);
+    }
+
+    public IssuedToken issue(Authentication authentication) {
+        return issue(authentication, null, ttl);
+    }
+
+    /** Issues a short-lived token that is only accepted by {@link #verifyStreamToken}. */
+    public IssuedToken issueStreamToken(Authentication authentication) {
+        return issue(authentication, STREAM_SCOPE, streamTtl);
+    }
+
+    private IssuedToken issue(Authentication authentication, String scope, Duration ttl) {
+        Instant now = Instant.now();
+        List<String> roles = new ArrayList<>();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            roles.add(authority.getAuthority());
+        }
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", issuer);
+        claims.put("sub", authentication.getName());
+        claims.put("roles", roles);
+        if (scope != null) {
+            claims.put("scope", scope);
+        }
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", now.plus(ttl).getEpochSecond());
+        String payload;
+        try {
+            payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode token claims", e);
+        }
+        String signingInput = HEADER + "." + payload;
+        return new IssuedToken(signingInput + "." + ENCODER.encodeToString(sign(signingInput)),
+                "Bearer", ttl.toSeconds());
+    }
+
+    /**
+     * Returns the authentication carried by a valid, unexpired token, or null
+     * if the token is malformed, forged, expired or a stream token.
+     */
+    public Authentication verify(String token) {
+        return verify(token, null);
+    }
+
+    /** Like {@link #verify(String)}, but only accepts stream tokens. */
+    public Authentication verifyStreamToken(String token) {
+        return verify(token, STREAM_SCOPE);
+    }
+
+    private Authentication verify(String token, String scope) {
+        int first = token.indexOf('.');
+        int second = token.indexOf('.', first + 1);
+        if (first < 0 || second < 0 || token.indexOf('.', second + 1) >= 0
+                || !HEADER.equals(token.substring(0, first))) {
+            return null;
+        }
+        try {
+            byte[] signature = DECODER.decode(token.substring(second + 1));
+            if (!MessageDigest.isEqual(signature, sign(token.substring(0, second)))) {
+                return null;
+            }
+            JsonNode claims = objectMapper.readTree(DECODER.decode(token.substring(first + 1, second)));
+            if (!issuer.equals(claims.path("iss").asText())
+                    || claims.path("exp").asLong() <= Instant.now().getEpochSecond()
+                    || !Objects.equals(scope, claims.hasNonNull("scope") ? claims.get("scope").asText() : null)) {
+                return null;
+            }
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (JsonNode role : claims.path("roles")) {
+                authorities.add(new SimpleGrantedAuthority(role.asText()));
+            }
+            return UsernamePasswordAuthenticationToken.authenticated(claims.path("sub").asText(), null, authorities);
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String signingInput) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        }
+    }
+}
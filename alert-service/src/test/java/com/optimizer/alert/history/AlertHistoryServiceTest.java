@@ -0,0 +1,37 @@
+package com.optimizer.alert.history;
+
+import com.optimizer.alert.model.AlertEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AlertHistoryServiceTest {
+
+    @Test
+    void cursorRoundTrips() {
+        AlertEvent last = new AlertEvent();
+        last.setId(42L);
+        last.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000));
+
+        String cursor = AlertHistoryService.encodeCursor(last);
+
+        assertArrayEquals(new String[]{"2024-03-01T12:30:15.123", "42"}, AlertHistoryService.decodeCursor(cursor));
+    }
+
+    @Test
+    void rejectsInvalidCursors() {
+        assertThrows(IllegalArgumentException.class, () -> AlertHistoryService.decodeCursor("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> AlertHistoryService.decodeCursor(encode("2024-03-01T12:30:15")));
+        assertThrows(IllegalArgumentException.class, () -> AlertHistoryService.decodeCursor(encode("yesterday|42")));
+        assertThrows(IllegalArgumentException.class, () -> AlertHistoryService.decodeCursor(encode("2024-03-01T12:30:15|abc")));
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
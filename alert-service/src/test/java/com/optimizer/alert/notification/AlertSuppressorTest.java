@@ -0,0 +1,43 @@
+package com.optimizer.alert.notification;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class AlertSuppressorTest {
+
+    @Test
+    void fingerprintIgnoresMeasurementsCaseAndWhitespace() {
+        long base = AlertSuppressor.fingerprint("vm-12 CPU at 91%");
+        assertEquals(base, AlertSuppressor.fingerprint("vm-12 CPU at 93%"));
+        assertEquals(base, AlertSuppressor.fingerprint("VM-12  cpu at 93.5 %"));
+    }
+
+    @Test
+    void fingerprintKeepsIdentifiers() {
+        assertNotEquals(AlertSuppressor.fingerprint("vm-12 CPU at 91%"),
+                AlertSuppressor.fingerprint("vm-34 CPU at 91%"));
+        assertNotEquals(AlertSuppressor.fingerprint("latency 120ms on node3"),
+                AlertSuppressor.fingerprint("latency 120ms on node4"));
+    }
+
+    @Test
+    void fingerprintIgnoresValuesWithUnits() {
+        assertEquals(AlertSuppressor.fingerprint("latency 120ms on node3"),
+                AlertSuppressor.fingerprint("latency 95 ms on node3"));
+        assertEquals(AlertSuppressor.fingerprint("disk usage 1,024 GB"),
+                AlertSuppressor.fingerprint("disk usage 980 GB"));
+    }
+
+    @Test
+    void fingerprintKeepsNumbersWithoutUnits() {
+        assertNotEquals(AlertSuppressor.fingerprint("disk 3 of 4"), AlertSuppressor.fingerprint("disk 2 of 4"));
+    }
+
+    @Test
+    void fingerprintOfNullIsStable() {
+        assertEquals(AlertSuppressor.fingerprint(null), AlertSuppressor.fingerprint(null));
+        assertNotEquals(AlertSuppressor.fingerprint(null), AlertSuppressor.fingerprint("x"));
+    }
+}
@@ -5,6 +5,10 @@ import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
 @Service
 public class CostCalculatorService {
 
@@ -16,6 +20,10 @@ public class CostCalculatorService {
         private String currentInstanceType;
         private String recommendedInstanceType;
         private String action; // UPSCALE, DOWNSCALE, TERMINATE
+        private String region; // pricing dimensions; null uses the catalog defaults
+        private String os;
+        private String tenancy;
+        private String purchaseOption;
     }
 
     @Data
@@ -26,14 +34,51 @@ public class CostCalculatorService {
         private Double savingsPercentage;
     }
 
+    @Data
+    public static class BatchSimulationResult {
+        private int count;
+        private double currentMonthlyCost;
+        private double projectedMonthlyCost;
+        private double monthlySavings;
+        private double savingsPercentage;
+        private List<CostSimulationResult> results;
+    }
+
+    /**
+     * Simulates every request in parallel and adds up the fleet totals. Results
+     * are in request order. Fails as a whole if any request cannot be priced.
+     */
+    public BatchSimulationResult simulateBatch(List<CostSimulationRequest> requests) {
+        CostSimulationResult[] results = new CostSimulationResult[requests.size()];
+        IntStream.range(0, results.length).parallel()
+                .forEach(i -> results[i] = simulateCost(requests.get(i)));
+
+        double current = 0.0;
+        double projected = 0.0;
+        for (CostSimulationResult r : results) {
+            current += r.getCurrentMonthlyCost();
+            projected += r.getProjectedMonthlyCost();
+        }
+        BatchSimulationResult batch = new BatchSimulationResult();
+        batch.setCount(results.length);
+        batch.setCurrentMonthlyCost(current);
+        batch.setProjectedMonthlyCost(projected);
+        batch.setMonthlySavings(current - projected);
+        batch.setSavingsPercentage(current > 0 ? ((current - projected) / current) * 100 : 0.0);
+        batch.setResults(Arrays.asList(results));
+        return batch;
+    }
+
     public CostSimulationResult simulateCost(CostSimulationRequest request) {
-        Double currentRate = pricingService.getHourlyRate(request.getCurrentInstanceType());
+        Double currentRate = pricingService.getHourlyRate(request.getCurrentInstanceType(), request.getRegion(),
+                request.getOs(), request.getTenancy(), request.getPurchaseOption());
         Double projectedRate = 0.0;
 
         if ("TERMINATE".equalsIgnoreCase(request.getAction())) {
             projectedRate = 0.0;
         } else {
-            projectedRate = pricingService.getHourlyRate(request.getRecommendedInstanceType());
+            projectedRate = pricingService.getHourlyRate(request.getRecommendedInstanceType(), request.getRegion(),
+                    request.getOs(), request.getTenancy(), request.getPurchaseOption());
         }
 
         Double currentMonthlyCost = currentRate * 24 * 30;
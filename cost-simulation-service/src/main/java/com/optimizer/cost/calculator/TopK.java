@@ -0,0 +1,86 @@
+package com.optimizer.cost.calculator;
+
+/**
+ * Bounded min-heap of indexes into a score array that keeps the {@code k}
+ * highest scores seen, with ties going to the lower index. Selecting from n
+ * scores is O(n log k) with no boxing, instead of sorting all n.
+ */
+final class TopK {
+
+    private final double[] scores;
+    private final int[] heap;
+    private int size;
+
+    TopK(double[] scores, int k) {
+        this.scores = scores;
+        this.heap = new int[k];
+    }
+
+    void offer(int index) {
+        if (size < heap.length) {
+            heap[size] = index;
+            siftUp(size++);
+        } else if (size > 0 && ranksAbove(index, heap[0])) {
+            heap[0] = index;
+            siftDown(0);
+        }
+    }
+
+    TopK merge(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.heap[i]);
+        }
+        return this;
+    }
+
+    /** Drains the heap and returns the kept indexes, best first. */
+    int[] toSortedArray() {
+        int[] sorted = new int[size];
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            sorted[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+        }
+        return sorted;
+    }
+
+    private boolean ranksAbove(int a, int b) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && a < b);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranksAbove(heap[parent], heap[i])) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && ranksAbove(heap[left], heap[right])) {
+                worst = right;
+            }
+            if (!ranksAbove(heap[i], heap[worst])) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int t = heap[a];
+        heap[a] = heap[b];
+        heap[b] = t;
+    }
+}
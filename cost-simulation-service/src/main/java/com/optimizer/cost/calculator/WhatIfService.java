@@ -0,0 +1,217 @@
+package com.optimizer.cost.calculator;
+
+import com.optimizer.cost.pricing.PricingCatalog;
+import com.optimizer.cost.pricing.PricingService;
+import com.optimizer.cost.pricing.UnknownInstanceTypeException;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Ranks candidate instance types by the monthly savings of moving a fleet onto
+ * them. All prices of one request come from a single catalog snapshot. The
+ * fleet is priced in the request's region; candidates are (type, region)
+ * pairs over {@code candidateRegions}, so a search can also move the fleet to
+ * another region. Hourly rates and savings are kept in primitive arrays, and
+ * only the top {@code limit} candidates are selected with a bounded heap.
+ * Candidate sets of at least {@code cost.whatif.parallel-threshold} are split
+ * into chunks that are scored and reduced to a top-K in parallel, then merged.
+ */
+@Service
+public class WhatIfService {
+
+    private static final double HOURS_PER_MONTH = 24 * 30;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Value("${cost.whatif.default-limit:10}")
+    private int defaultLimit;
+    @Value("${cost.whatif.parallel-threshold:2048}")
+    private int parallelThreshold;
+    @Value("${cost.whatif.chunk-size:512}")
+    private int chunkSize;
+
+    @Data
+    public static class FleetInstance {
+        private String instanceType;
+        private int count = 1;
+    }
+
+    @Data
+    public static class WhatIfRequest {
+        private String currentInstanceType;
+        private List<FleetInstance> currentInstances;
+        private List<String> candidates; // empty or missing: every catalog type
+        private String action;
+        private Integer limit;
+        private String region; // pricing dimensions; null uses the catalog defaults
+        private String os;
+        private String tenancy;
+        private String purchaseOption;
+        private List<String> candidateRegions; // empty or missing: region only; ["*"]: every catalog region
+    }
+
+    @Data
+    public static class WhatIfResult {
+        private String recommendedInstanceType;
+        private String region;
+        private CostCalculatorService.CostSimulationResult result;
+    }
+
+    /**
+     * Returns the best candidates, highest savings first. The current cost is
+     * the sum over every fleet instance; the projected cost runs the same
+     * number of instances on the candidate type, or nothing for TERMINATE.
+     */
+    public List<WhatIfResult> evaluate(WhatIfRequest request) {
+        PricingCatalog catalog = pricingService.getCatalog();
+        String region = request.getRegion() != null ? request.getRegion() : pricingService.getDefaultRegion();
+        String os = request.getOs() != null ? request.getOs() : pricingService.getDefaultOs();
+        String tenancy = request.getTenancy() != null ? request.getTenancy() : pricingService.getDefaultTenancy();
+        String purchaseOption = request.getPurchaseOption() != null
+                ? request.getPurchaseOption() : pricingService.getDefaultPurchaseOption();
+        int[] dims = {catalog.regionIndex(region), catalog.osIndex(os), catalog.tenancyIndex(tenancy),
+                catalog.purchaseOptionIndex(purchaseOption)};
+
+        double currentHourly = 0.0;
+        long instances = 0;
+        for (FleetInstance instance : fleet(request)) {
+            double rate = rate(catalog, catalog.typeIndex(instance.getInstanceType()), dims[0], dims);
+            if (Double.isNaN(rate)) {
+                throw new UnknownInstanceTypeException(instance.getInstanceType(), region, os, tenancy, purchaseOption);
+            }
+            currentHourly += instance.getCount() * rate;
+            instances += instance.getCount();
+        }
+
+        boolean catalogSearch = request.getCandidates() == null || request.getCandidates().isEmpty();
+        List<String> types = catalogSearch ? catalog.getInstanceTypes() : request.getCandidates();
+        List<String> regions = candidateRegions(request, catalog, region);
+        int n = types.size() * regions.size();
+        if (n == 0) {
+            return List.of();
+        }
+        // Candidate i is types[i / regions] in regions[i % regions].
+        int[] typeIndexes = new int[n];
+        int[] regionIndexes = new int[n];
+        for (int t = 0; t < types.size(); t++) {
+            int type = catalog.typeIndex(types.get(t));
+            boolean priced = false;
+            for (int r = 0; r < regions.size(); r++) {
+                int i = t * regions.size() + r;
+                typeIndexes[i] = type;
+                regionIndexes[i] = catalog.regionIndex(regions.get(r));
+                priced |= !Double.isNaN(rate(catalog, type, regionIndexes[i], dims));
+            }
+            if (!catalogSearch && !priced) {
+                throw new UnknownInstanceTypeException(types.get(t), String.join("|", regions), os, tenancy,
+                        purchaseOption);
+            }
+        }
+        boolean search = catalogSearch || regions.size() > 1;
+        int k = request.getLimit() != null ? Math.max(1, Math.min(request.getLimit(), n))
+                : search ? Math.min(defaultLimit, n) : n;
+
+        boolean terminate = "TERMINATE".equalsIgnoreCase(request.getAction());
+        double[] projectedHourly = new double[n];
+        double[] savings = new double[n];
+        double fleetHourly = currentHourly;
+        long fleetSize = instances;
+        int[] top;
+        if (n < parallelThreshold) {
+            top = score(catalog, typeIndexes, regionIndexes, dims, terminate, fleetHourly, fleetSize,
+                    projectedHourly, savings, 0, n, k)
+                    .toSortedArray();
+        } else {
+            int chunks = (n + chunkSize - 1) / chunkSize;
+            top = IntStream.range(0, chunks).parallel()
+                    .mapToObj(c -> score(catalog, typeIndexes, regionIndexes, dims, terminate, fleetHourly, fleetSize,
+                            projectedHourly, savings,
+                            c * chunkSize, Math.min(n, (c + 1) * chunkSize), k))
+                    .reduce(TopK::merge)
+                    .orElseThrow()
+                    .toSortedArray();
+        }
+
+        List<WhatIfResult> results = new ArrayList<>(top.length);
+        for (int index : top) {
+            WhatIfResult w = new WhatIfResult();
+            w.setRecommendedInstanceType(types.get(index / regions.size()));
+            w.setRegion(regions.get(index % regions.size()));
+            w.setResult(toResult(currentHourly, projectedHourly[index]));
+            results.add(w);
+        }
+        return results;
+    }
+
+    private static List<String> candidateRegions(WhatIfRequest request, PricingCatalog catalog, String region) {
+        List<String> regions = request.getCandidateRegions();
+        if (regions == null || regions.isEmpty()) {
+            return List.of(region);
+        }
+        if (regions.size() == 1 && "*".equals(regions.get(0))) {
+            return catalog.getRegions();
+        }
+        for (String r : regions) {
+            if (catalog.regionIndex(r) == PricingCatalog.MISSING) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown region '" + r + "'");
+            }
+        }
+        return regions;
+    }
+
+    private List<FleetInstance> fleet(WhatIfRequest request) {
+        if (request.getCurrentInstances() != null && !request.getCurrentInstances().isEmpty()) {
+            return request.getCurrentInstances();
+        }
+        FleetInstance single = new FleetInstance();
+        single.setInstanceType(request.getCurrentInstanceType());
+        return List.of(single);
+    }
+
+    /**
+     * Scores candidates {@code from..to} into the shared arrays and returns
+     * their top-K. Catalog types without a price for the requested dimensions
+     * are skipped.
+     */
+    private TopK score(PricingCatalog catalog, int[] typeIndexes, int[] regionIndexes, int[] dims, boolean terminate,
+                       double currentHourly, long instances, double[] projectedHourly, double[] savings,
+                       int from, int to, int k) {
+        TopK top = new TopK(savings, k);
+        for (int i = from; i < to; i++) {
+            double rate = rate(catalog, typeIndexes[i], regionIndexes[i], dims);
+            if (Double.isNaN(rate)) {
+                continue;
+            }
+            projectedHourly[i] = terminate ? 0.0 : instances * rate;
+            savings[i] = currentHourly - projectedHourly[i];
+            top.offer(i);
+        }
+        return top;
+    }
+
+    /** {@code dims} holds the request's region, os, tenancy and purchase option; the region is passed separately. */
+    private static double rate(PricingCatalog catalog, int type, int region, int[] dims) {
+        return catalog.rate(type, region, dims[1], dims[2], dims[3]);
+    }
+
+    private CostCalculatorService.CostSimulationResult toResult(double currentHourly, double projectedHourly) {
+        double currentMonthlyCost = currentHourly * HOURS_PER_MONTH;
+        double projectedMonthlyCost = projectedHourly * HOURS_PER_MONTH;
+        double savings = currentMonthlyCost - projectedMonthlyCost;
+        CostCalculatorService.CostSimulationResult result = new CostCalculatorService.CostSimulationResult();
+        result.setCurrentMonthlyCost(currentMonthlyCost);
+        result.setProjectedMonthlyCost(projectedMonthlyCost);
+        result.setMonthlySavings(savings);
+        result.setSavingsPercentage(currentMonthlyCost > 0 ? (savings / currentMonthlyCost) * 100 : 0.0);
+        return result;
+    }
+}
@@ -1,41 +1,62 @@
 package com.optimizer.cost.config;
 
+import com.optimizer.cost.security.CachingAuthenticationProvider;
+import com.optimizer.cost.security.TokenAuthenticationFilter;
+import com.optimizer.cost.security.TokenService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationManager authenticationManager,
+                                           TokenService tokenService) throws Exception {
         http.csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authenticationManager(authenticationManager)
+            .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/cost/simulate").hasRole("ADMIN")
+                .requestMatchers("/cost/auth/login").permitAll()
+                .requestMatchers("/cost/simulate", "/cost/simulate/batch", "/cost/pricing/reload", "/cost/auth/stats").hasRole("ADMIN")
                 .requestMatchers("/cost/**").authenticated()
                 .anyRequest().permitAll()
             )
-            .httpBasic();
+            .httpBasic(Customizer.withDefaults());
         return http.build();
     }
 
     @Bean
-    public UserDetailsService users() {
+    public AuthenticationManager authenticationManager(CachingAuthenticationProvider provider) {
+        return new ProviderManager(provider);
+    }
+
+    @Bean
+    public UserDetailsService users(PasswordEncoder passwordEncoder,
+                                    @Value("${security.users.admin-password:admin123}") String adminPassword,
+                                    @Value("${security.users.viewer-password:viewer123}") String viewerPassword) {
         InMemoryUserDetailsManager manager = new InMemoryUserDetailsManager();
-        manager.createUser(User.withUsername("admin").password("admin123").roles("ADMIN").build());
-        manager.createUser(User.withUsername("viewer").password("viewer123").roles("VIEWER").build());
+        manager.createUser(User.withUsername("admin").password(passwordEncoder.encode(adminPassword)).roles("ADMIN").build());
+        manager.createUser(User.withUsername("viewer").password(passwordEncoder.encode(viewerPassword)).roles("VIEWER").build());
         return manager;
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return NoOpPasswordEncoder.getInstance();
+        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
     }
 }
@@ -0,0 +1,118 @@
+package com.optimizer.cost.config;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Moves every pooled sequence table past the ids already in its entity's
+ * table. Those ids were assigned by AUTO_INCREMENT before the entity switched
+ * to a pooled sequence. The entities are found by scanning the application
+ * package for {@code @Id} fields with a {@code @SequenceGenerator}.
+ * <p>
+ * The EntityManagerFactory depends on this bean. Alignment therefore
+ * finishes before Hibernate can hand out an id block, and before the web
+ * server, schedulers or background workers start. If alignment fails,
+ * startup fails, because inserts could otherwise collide with existing
+ * rows. MySQL emulates sequences with a one-row {@code next_val} table.
+ * Other databases are left to Hibernate.
+ */
+@Slf4j
+@Component(SequenceAlignment.BEAN_NAME)
+public class SequenceAlignment implements InitializingBean {
+
+    static final String BEAN_NAME = "sequenceAlignment";
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private BeanFactory beanFactory;
+
+    @Bean
+    static EntityManagerFactoryDependsOnPostProcessor sequenceAlignmentBeforeJpa() {
+        return new EntityManagerFactoryDependsOnPostProcessor(BEAN_NAME);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String product = metaData.getDatabaseProductName();
+            if (!product.contains("MySQL") && !product.contains("MariaDB")) {
+                log.info("Skipping sequence alignment on {}", product);
+                return;
+            }
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+            scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+            for (String basePackage : AutoConfigurationPackages.get(beanFactory)) {
+                for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+                    Class<?> entity = ClassUtils.resolveClassName(candidate.getBeanClassName(), getClass().getClassLoader());
+                    for (Field field : entity.getDeclaredFields()) {
+                        SequenceGenerator generator = field.getAnnotation(SequenceGenerator.class);
+                        if (generator != null && field.isAnnotationPresent(Id.class)) {
+                            align(jdbcTemplate, connection, entity, field, generator);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void align(JdbcTemplate jdbcTemplate, Connection connection, Class<?> entity, Field idField,
+                       SequenceGenerator generator) throws SQLException {
+        Table table = entity.getAnnotation(Table.class);
+        String entityTable = table != null && !table.name().isEmpty() ? table.name() : snakeCase(entity.getSimpleName());
+        Column column = idField.getAnnotation(Column.class);
+        String idColumn = column != null && !column.name().isEmpty() ? column.name() : snakeCase(idField.getName());
+        String sequenceTable = generator.sequenceName().isEmpty() ? generator.name() : generator.sequenceName();
+        if (!tableExists(connection, entityTable)) {
+            return;
+        }
+        long floor = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + entityTable, Long.class)
+                + generator.allocationSize() + 1;
+        try {
+            if (tableExists(connection, sequenceTable)) {
+                jdbcTemplate.update("UPDATE " + sequenceTable + " SET next_val = GREATEST(next_val, ?)", floor);
+            } else {
+                jdbcTemplate.execute("CREATE TABLE " + sequenceTable + " (next_val BIGINT) ENGINE=InnoDB");
+                jdbcTemplate.update("INSERT INTO " + sequenceTable + " VALUES (?)", floor);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Could not align " + sequenceTable + " with " + entityTable, e);
+        }
+        log.info("Aligned {} to at least {}", sequenceTable, floor);
+    }
+
+    private static boolean tableExists(Connection connection, String name) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    private static String snakeCase(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+    }
+}
@@ -1,21 +1,28 @@
 package com.optimizer.cost.controller;
 
 import com.optimizer.cost.calculator.CostCalculatorService;
-import com.optimizer.cost.model.CostSimulationHistory;
-import com.optimizer.cost.repository.CostSimulationHistoryRepository;
+import com.optimizer.cost.calculator.WhatIfService;
+import com.optimizer.cost.history.CostHistoryService;
+import com.optimizer.cost.pricing.PricingService;
+import com.optimizer.cost.usage.UsageCostService;
 import com.optimizer.cost.dto.ApiResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/cost")
@@ -24,76 +31,87 @@ public class CostController {
     @Autowired
     private CostCalculatorService costCalculatorService;
     @Autowired
-    private CostSimulationHistoryRepository historyRepository;
+    private CostHistoryService costHistoryService;
+    @Autowired
+    private WhatIfService whatIfService;
+    @Autowired
+    private PricingService pricingService;
+    @Autowired
+    private UsageCostService usageCostService;
+
+    @Value("${cost.simulate.max-batch-size:50000}")
+    private int maxBatchSize;
 
     @PostMapping("/simulate")
     public ResponseEntity<ApiResponse> simulate(@RequestBody CostCalculatorService.CostSimulationRequest request) {
         CostCalculatorService.CostSimulationResult result = costCalculatorService.simulateCost(request);
-        CostSimulationHistory h = new CostSimulationHistory();
-        h.setAction(request.getAction());
-        h.setCurrentInstanceType(request.getCurrentInstanceType());
-        h.setRecommendedInstanceType(request.getRecommendedInstanceType());
-        h.setCurrentMonthlyCost(result.getCurrentMonthlyCost());
-        h.setProjectedMonthlyCost(result.getProjectedMonthlyCost());
-        h.setMonthlySavings(result.getMonthlySavings());
-        h.setSavingsPercentage(result.getSavingsPercentage());
-        h.setCreatedAt(java.time.LocalDateTime.now());
-        historyRepository.save(h);
+        costHistoryService.record(request, result);
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
-    @PostMapping("/whatif")
-    public ResponseEntity<ApiResponse> whatIf(@RequestBody WhatIfRequest request) {
-        List<WhatIfResult> results = new ArrayList<>();
-        for (String candidate : request.getCandidates()) {
-            CostCalculatorService.CostSimulationRequest req = new CostCalculatorService.CostSimulationRequest();
-            req.setCurrentInstanceType(request.getCurrentInstanceType());
-            req.setRecommendedInstanceType(candidate);
-            req.setAction(request.getAction());
-            CostCalculatorService.CostSimulationResult r = costCalculatorService.simulateCost(req);
-            WhatIfResult w = new WhatIfResult();
-            w.setRecommendedInstanceType(candidate);
-            w.setResult(r);
-            results.add(w);
+    @PostMapping("/simulate/batch")
+    public ResponseEntity<ApiResponse> simulateBatch(@RequestBody List<CostCalculatorService.CostSimulationRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxBatchSize + " simulations per batch");
         }
-        results.sort(Comparator.comparingDouble(a -> -a.getResult().getMonthlySavings()));
-        return ResponseEntity.ok(ApiResponse.success(results));
+        CostCalculatorService.BatchSimulationResult batch = costCalculatorService.simulateBatch(requests);
+        costHistoryService.recordAll(requests, batch.getResults());
+        return ResponseEntity.ok(ApiResponse.success(batch));
     }
 
-    @GetMapping("/history/summary")
-    public ResponseEntity<ApiResponse> historySummary() {
-        LocalDateTime since = LocalDateTime.now().minusDays(30);
-        double totalSavings = historyRepository.findByCreatedAtAfter(since).stream()
-                .mapToDouble(h -> h.getMonthlySavings() != null ? h.getMonthlySavings() : 0.0)
-                .sum();
-        return ResponseEntity.ok(ApiResponse.success(new Summary(totalSavings)));
+    @PostMapping("/simulate/usage")
+    public ResponseEntity<ApiResponse> simulateUsage(@RequestBody UsageCostService.UsageCostRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(usageCostService.simulate(request)));
+    }
+
+    @PostMapping("/simulate/usage/batch")
+    public ResponseEntity<ApiResponse> simulateUsageBatch(@RequestBody List<UsageCostService.UsageCostRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxBatchSize + " simulations per batch");
+        }
+        return ResponseEntity.ok(ApiResponse.success(usageCostService.simulateFleet(requests)));
+    }
+
+    @PostMapping("/whatif")
+    public ResponseEntity<ApiResponse> whatIf(@RequestBody WhatIfService.WhatIfRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(whatIfService.evaluate(request)));
     }
 
-    public static class Summary {
-        private double totalSavings;
-        public Summary(double totalSavings) { this.totalSavings = totalSavings; }
-        public double getTotalSavings() { return totalSavings; }
-        public void setTotalSavings(double v) { this.totalSavings = v; }
+    @GetMapping("/pricing")
+    public ResponseEntity<ApiResponse> pricing() {
+        return ResponseEntity.ok(ApiResponse.success(pricingService.getCatalog().getStatus()));
     }
 
-    public static class WhatIfRequest {
-        private String currentInstanceType;
-        private List<String> candidates;
-        private String action;
-        public String getCurrentInstanceType() { return currentInstanceType; }
-        public void setCurrentInstanceType(String v) { this.currentInstanceType = v; }
-        public List<String> getCandidates() { return candidates; }
-        public void setCandidates(List<String> v) { this.candidates = v; }
-        public String getAction() { return action; }
-        public void setAction(String v) { this.action = v; }
+    @GetMapping("/pricing/rate")
+    public ResponseEntity<ApiResponse> rate(@RequestParam String instanceType,
+                                            @RequestParam(required = false) String region,
+                                            @RequestParam(required = false) String os,
+                                            @RequestParam(required = false) String tenancy,
+                                            @RequestParam(required = false) String purchaseOption) {
+        return ResponseEntity.ok(ApiResponse.success(
+                pricingService.getHourlyRate(instanceType, region, os, tenancy, purchaseOption)));
     }
 
-    public static class WhatIfResult {
-        private String recommendedInstanceType;
-        private CostCalculatorService.CostSimulationResult result;
-        public String getRecommendedInstanceType() { return recommendedInstanceType; }
-        public void setRecommendedInstanceType(String v) { this.recommendedInstanceType = v; }
-        public CostCalculatorService.CostSimulationResult getResult() { return result; }
-        public void setResult(CostCalculatorService.CostSimulationResult v) { this.result = v; }
+    @PostMapping("/pricing/reload")
+    public ResponseEntity<ApiResponse> reloadPricing() throws IOException {
+        return ResponseEntity.ok(ApiResponse.success(pricingService.reload()));
+    }
+
+    @GetMapping("/history/summary")
+    public ResponseEntity<ApiResponse> historySummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "NONE") String groupBy) {
+        CostHistoryService.GroupBy grouping;
+        try {
+            grouping = CostHistoryService.GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "groupBy must be one of " + Arrays.toString(CostHistoryService.GroupBy.values()));
+        }
+        LocalDateTime since = from != null ? from : LocalDateTime.now().minusDays(30);
+        return ResponseEntity.ok(ApiResponse.success(costHistoryService.summarize(since, to, grouping)));
     }
 }
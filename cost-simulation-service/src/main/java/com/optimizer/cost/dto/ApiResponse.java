@@ -13,4 +13,11 @@ public class ApiResponse {
         r.setData(data);
         return r;
     }
+
+    public static ApiResponse error(Object data) {
+        ApiResponse r = new ApiResponse();
+        r.setStatus("ERROR");
+        r.setData(data);
+        return r;
+    }
 }
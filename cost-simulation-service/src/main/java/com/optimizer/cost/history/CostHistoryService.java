@@ -0,0 +1,266 @@
+package com.optimizer.cost.history;
+
+import com.optimizer.cost.calculator.CostCalculatorService;
+import com.optimizer.cost.model.CostSavingsDaily;
+import com.optimizer.cost.model.CostSimulationHistory;
+import com.optimizer.cost.repository.CostSavingsDailyRepository;
+import com.optimizer.cost.repository.CostSimulationHistoryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records simulations in {@code cost_simulation_history} and keeps the
+ * {@code cost_savings_daily} rollup in step in the same transaction, so
+ * savings summaries read one row per day and group instead of every
+ * simulation.
+ */
+@Slf4j
+@Service
+public class CostHistoryService {
+
+    private static final String UPSERT_DAILY = "INSERT INTO cost_savings_daily"
+            + " (bucket_date, action, instance_type, simulations, current_monthly_cost, projected_monthly_cost,"
+            + " monthly_savings) VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE"
+            + " simulations = simulations + VALUES(simulations),"
+            + " current_monthly_cost = current_monthly_cost + VALUES(current_monthly_cost),"
+            + " projected_monthly_cost = projected_monthly_cost + VALUES(projected_monthly_cost),"
+            + " monthly_savings = monthly_savings + VALUES(monthly_savings)";
+    private static final String BACKFILL_DAILY = "INSERT INTO cost_savings_daily"
+            + " (bucket_date, action, instance_type, simulations, current_monthly_cost, projected_monthly_cost,"
+            + " monthly_savings) SELECT DATE(created_at), COALESCE(action, ''), COALESCE(current_instance_type, ''),"
+            + " COUNT(*), COALESCE(SUM(current_monthly_cost), 0), COALESCE(SUM(projected_monthly_cost), 0),"
+            + " COALESCE(SUM(monthly_savings), 0) FROM cost_simulation_history WHERE created_at IS NOT NULL"
+            + " GROUP BY DATE(created_at), COALESCE(action, ''), COALESCE(current_instance_type, '')";
+
+    /**
+     * Rollup rows are upserted in primary-key order, so concurrent batches
+     * lock overlapping rows in the same order instead of deadlocking.
+     */
+    private static final Comparator<CostSavingsDaily.Key> KEY_ORDER = Comparator
+            .comparing(CostSavingsDaily.Key::getBucketDate)
+            .thenComparing(CostSavingsDaily.Key::getAction)
+            .thenComparing(CostSavingsDaily.Key::getInstanceType);
+
+    @Autowired
+    private CostSimulationHistoryRepository historyRepository;
+    @Autowired
+    private CostSavingsDailyRepository dailyRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    public enum GroupBy { NONE, ACTION, INSTANCE_TYPE, DAY }
+
+    @Data
+    public static class SavingsGroup {
+        private String key;
+        private long simulations;
+        private double currentMonthlyCost;
+        private double projectedMonthlyCost;
+        private double monthlySavings;
+    }
+
+    @Data
+    public static class SavingsSummary {
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private GroupBy groupBy;
+        private long simulations;
+        private double currentMonthlyCost;
+        private double projectedMonthlyCost;
+        private double totalSavings;
+        private List<SavingsGroup> groups;
+    }
+
+    /**
+     * Fills the rollup from existing history the first time it is empty. Runs
+     * before the web server accepts requests, so no simulation can be counted
+     * twice.
+     */
+    @PostConstruct
+    public void backfill() {
+        try {
+            if (dailyRepository.count() == 0 && historyRepository.count() > 0) {
+                int rows = jdbcTemplate.update(BACKFILL_DAILY);
+                log.info("Backfilled {} daily savings rows from cost_simulation_history", rows);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not backfill cost_savings_daily: {}", e.getMessage());
+        }
+    }
+
+    @Transactional
+    public CostSimulationHistory record(CostCalculatorService.CostSimulationRequest request,
+                                        CostCalculatorService.CostSimulationResult result) {
+        CostSimulationHistory h = historyRepository.save(toHistory(request, result, LocalDateTime.now()));
+        Map<CostSavingsDaily.Key, double[]> deltas = new TreeMap<>(KEY_ORDER);
+        accumulate(deltas, h);
+        applyDaily(deltas);
+        return h;
+    }
+
+    /**
+     * Persists one row per simulation in a single transaction, flushing and
+     * clearing the persistence context every {@code batchSize} rows so the
+     * inserts go out as JDBC batches and memory stays bounded.
+     */
+    @Transactional
+    public void recordAll(List<CostCalculatorService.CostSimulationRequest> requests,
+                          List<CostCalculatorService.CostSimulationResult> results) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<CostSavingsDaily.Key, double[]> deltas = new TreeMap<>(KEY_ORDER);
+        for (int i = 0; i < requests.size(); i++) {
+            CostSimulationHistory h = toHistory(requests.get(i), results.get(i), now);
+            entityManager.persist(h);
+            accumulate(deltas, h);
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        applyDaily(deltas);
+    }
+
+    /**
+     * Sums savings over {@code [from, to)}; a null {@code to} means now. Whole
+     * days come from the daily rollup and only the partial days at either end
+     * are aggregated from history, so the cost grows with the number of days
+     * rather than the number of simulations.
+     */
+    @Transactional(readOnly = true)
+    public SavingsSummary summarize(LocalDateTime from, LocalDateTime to, GroupBy groupBy) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        Map<String, SavingsGroup> groups = new LinkedHashMap<>();
+        if (from.isBefore(end)) {
+            LocalDate firstFullDay = from.toLocalTime().equals(LocalTime.MIDNIGHT)
+                    ? from.toLocalDate() : from.toLocalDate().plusDays(1);
+            // Without an explicit end, today's rollup row already holds everything up to now.
+            LocalDate endFullDay = to != null ? to.toLocalDate() : end.toLocalDate().plusDays(1);
+            if (!firstFullDay.isBefore(endFullDay)) {
+                addHistory(groups, from, end, groupBy);
+            } else {
+                if (from.isBefore(firstFullDay.atStartOfDay())) {
+                    addHistory(groups, from, firstFullDay.atStartOfDay(), groupBy);
+                }
+                addDaily(groups, firstFullDay, endFullDay, groupBy);
+                if (to != null && endFullDay.atStartOfDay().isBefore(to)) {
+                    addHistory(groups, endFullDay.atStartOfDay(), to, groupBy);
+                }
+            }
+        }
+
+        SavingsSummary summary = new SavingsSummary();
+        summary.setFrom(from);
+        summary.setTo(end);
+        summary.setGroupBy(groupBy);
+        for (SavingsGroup g : groups.values()) {
+            summary.setSimulations(summary.getSimulations() + g.getSimulations());
+            summary.setCurrentMonthlyCost(summary.getCurrentMonthlyCost() + g.getCurrentMonthlyCost());
+            summary.setProjectedMonthlyCost(summary.getProjectedMonthlyCost() + g.getProjectedMonthlyCost());
+            summary.setTotalSavings(summary.getTotalSavings() + g.getMonthlySavings());
+        }
+        if (groupBy != GroupBy.NONE) {
+            summary.setGroups(new ArrayList<>(groups.values()));
+        }
+        return summary;
+    }
+
+    private void addHistory(Map<String, SavingsGroup> groups, LocalDateTime from, LocalDateTime to, GroupBy groupBy) {
+        List<Object[]> rows = switch (groupBy) {
+            case ACTION -> historyRepository.sumByActionBetween(from, to);
+            case INSTANCE_TYPE -> historyRepository.sumByInstanceTypeBetween(from, to);
+            case NONE, DAY -> historyRepository.sumBetween(from, to);
+        };
+        for (Object[] row : rows) {
+            // A partial-day slice never spans midnight, so its day is the slice's start.
+            add(groups, groupBy == GroupBy.DAY ? from.toLocalDate().toString() : row[0], row);
+        }
+    }
+
+    private void addDaily(Map<String, SavingsGroup> groups, LocalDate from, LocalDate to, GroupBy groupBy) {
+        List<Object[]> rows = switch (groupBy) {
+            case ACTION -> dailyRepository.sumByActionBetween(from, to);
+            case INSTANCE_TYPE -> dailyRepository.sumByInstanceTypeBetween(from, to);
+            case DAY -> dailyRepository.sumByDayBetween(from, to);
+            case NONE -> dailyRepository.sumBetween(from, to);
+        };
+        for (Object[] row : rows) {
+            add(groups, row[0], row);
+        }
+    }
+
+    private static void add(Map<String, SavingsGroup> groups, Object key, Object[] row) {
+        long simulations = ((Number) row[1]).longValue();
+        if (simulations == 0) {
+            return;
+        }
+        String k = key != null ? key.toString() : "";
+        SavingsGroup g = groups.computeIfAbsent(k, x -> {
+            SavingsGroup created = new SavingsGroup();
+            created.setKey(x);
+            return created;
+        });
+        g.setSimulations(g.getSimulations() + simulations);
+        g.setCurrentMonthlyCost(g.getCurrentMonthlyCost() + ((Number) row[2]).doubleValue());
+        g.setProjectedMonthlyCost(g.getProjectedMonthlyCost() + ((Number) row[3]).doubleValue());
+        g.setMonthlySavings(g.getMonthlySavings() + ((Number) row[4]).doubleValue());
+    }
+
+    /**
+     * Folds a recorded simulation into the rollup delta of its (day, action,
+     * instance type), so a batch costs one upsert per group, not per row.
+     */
+    private static void accumulate(Map<CostSavingsDaily.Key, double[]> deltas, CostSimulationHistory h) {
+        CostSavingsDaily.Key key = new CostSavingsDaily.Key(h.getCreatedAt().toLocalDate(),
+                h.getAction() != null ? h.getAction() : "",
+                h.getCurrentInstanceType() != null ? h.getCurrentInstanceType() : "");
+        double[] d = deltas.computeIfAbsent(key, k -> new double[4]);
+        d[0]++;
+        d[1] += h.getCurrentMonthlyCost() != null ? h.getCurrentMonthlyCost() : 0.0;
+        d[2] += h.getProjectedMonthlyCost() != null ? h.getProjectedMonthlyCost() : 0.0;
+        d[3] += h.getMonthlySavings() != null ? h.getMonthlySavings() : 0.0;
+    }
+
+    private void applyDaily(Map<CostSavingsDaily.Key, double[]> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((key, d) -> args.add(new Object[]{key.getBucketDate(), key.getAction(), key.getInstanceType(),
+                (long) d[0], d[1], d[2], d[3]}));
+        jdbcTemplate.batchUpdate(UPSERT_DAILY, args);
+    }
+
+    private CostSimulationHistory toHistory(CostCalculatorService.CostSimulationRequest request,
+                                            CostCalculatorService.CostSimulationResult result, LocalDateTime createdAt) {
+        CostSimulationHistory h = new CostSimulationHistory();
+        h.setAction(request.getAction());
+        h.setCurrentInstanceType(request.getCurrentInstanceType());
+        h.setRecommendedInstanceType(request.getRecommendedInstanceType());
+        h.setCurrentMonthlyCost(result.getCurrentMonthlyCost());
+        h.setProjectedMonthlyCost(result.getProjectedMonthlyCost());
+        h.setMonthlySavings(result.getMonthlySavings());
+        h.setSavingsPercentage(result.getSavingsPercentage());
+        h.setCreatedAt(createdAt);
+        return h;
+    }
+}
@@ -0,0 +1,42 @@
+package com.optimizer.cost.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Running savings totals per day, action and current instance type, kept up
+ * to date as simulations are recorded. Missing actions and instance types are
+ * stored as empty strings because they are part of the key.
+ */
+@Data
+@Entity
+@Table(name = "cost_savings_daily")
+@IdClass(CostSavingsDaily.Key.class)
+public class CostSavingsDaily {
+    @Id
+    private LocalDate bucketDate;
+    @Id
+    private String action;
+    @Id
+    private String instanceType;
+    private long simulations;
+    private double currentMonthlyCost;
+    private double projectedMonthlyCost;
+    private double monthlySavings;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private LocalDate bucketDate;
+        private String action;
+        private String instanceType;
+    }
+}
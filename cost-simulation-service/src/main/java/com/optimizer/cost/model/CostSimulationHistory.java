@@ -7,10 +7,12 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "cost_simulation_history")
+@Table(name = "cost_simulation_history",
+        indexes = @Index(name = "idx_cost_history_created_at", columnList = "created_at"))
 public class CostSimulationHistory {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cost_simulation_history_seq")
+    @SequenceGenerator(name = "cost_simulation_history_seq", sequenceName = "cost_simulation_history_seq", allocationSize = 50)
     private Long id;
     private String action;
     private String currentInstanceType;
@@ -0,0 +1,251 @@
+package com.optimizer.cost.pricing;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable price index. Every dimension value (instance type, region, OS,
+ * tenancy, purchase option) is interned to a small integer once at build time,
+ * and the five indexes are packed into one {@code long} key of an
+ * open-addressing table of primitive keys and rates. After resolving the
+ * dimension names, a lookup is a few array reads and allocates nothing.
+ * Missing prices are returned as NaN.
+ */
+public final class PricingCatalog {
+
+    public static final int MISSING = -1;
+
+    private static final int TYPE_BITS = 24;
+    private static final int REGION_BITS = 12;
+    private static final int SMALL_BITS = 8;
+    private static final long EMPTY = -1L;
+
+    private final Dimension types;
+    private final Dimension regions;
+    private final Dimension operatingSystems;
+    private final Dimension tenancies;
+    private final Dimension purchaseOptions;
+    private final long[] keys;
+    private final double[] rates;
+    private final int mask;
+    private final int size;
+    private final String version;
+    private final String source;
+    private final LocalDateTime loadedAt;
+
+    @Data
+    public static class CatalogStatus {
+        private String version;
+        private String source;
+        private LocalDateTime loadedAt;
+        private int skus;
+        private int instanceTypes;
+        private List<String> regions;
+        private List<String> operatingSystems;
+        private List<String> tenancies;
+        private List<String> purchaseOptions;
+    }
+
+    private PricingCatalog(Builder builder, String version, String source) {
+        this.types = builder.types.freeze();
+        this.regions = builder.regions.freeze();
+        this.operatingSystems = builder.operatingSystems.freeze();
+        this.tenancies = builder.tenancies.freeze();
+        this.purchaseOptions = builder.purchaseOptions.freeze();
+        int capacity = Integer.highestOneBit(Math.max(2, builder.size * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.rates = new double[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+        int distinct = 0;
+        for (int i = 0; i < builder.size; i++) {
+            int slot = slot(builder.keys[i]);
+            if (keys[slot] == EMPTY) {
+                distinct++;
+            }
+            keys[slot] = builder.keys[i];
+            rates[slot] = builder.rates[i];
+        }
+        this.size = distinct;
+        this.version = version;
+        this.source = source;
+        this.loadedAt = LocalDateTime.now();
+    }
+
+    public int typeIndex(String instanceType) {
+        return types.indexOf(instanceType);
+    }
+
+    public int regionIndex(String region) {
+        return regions.indexOf(region);
+    }
+
+    public int osIndex(String os) {
+        return operatingSystems.indexOf(os);
+    }
+
+    public int tenancyIndex(String tenancy) {
+        return tenancies.indexOf(tenancy);
+    }
+
+    public int purchaseOptionIndex(String purchaseOption) {
+        return purchaseOptions.indexOf(purchaseOption);
+    }
+
+    /**
+     * Returns the hourly rate for resolved dimension indexes, or NaN when any
+     * index is {@link #MISSING} or the combination has no price.
+     */
+    public double rate(int type, int region, int os, int tenancy, int purchaseOption) {
+        if (type < 0 || region < 0 || os < 0 || tenancy < 0 || purchaseOption < 0) {
+            return Double.NaN;
+        }
+        long key = pack(type, region, os, tenancy, purchaseOption);
+        int slot = (int) mix(key) & mask;
+        while (true) {
+            long k = keys[slot];
+            if (k == key) {
+                return rates[slot];
+            }
+            if (k == EMPTY) {
+                return Double.NaN;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public List<String> getInstanceTypes() {
+        return types.values;
+    }
+
+    public List<String> getRegions() {
+        return regions.values;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public CatalogStatus getStatus() {
+        CatalogStatus status = new CatalogStatus();
+        status.setVersion(version);
+        status.setSource(source);
+        status.setLoadedAt(loadedAt);
+        status.setSkus(size);
+        status.setInstanceTypes(types.values.size());
+        status.setRegions(regions.values);
+        status.setOperatingSystems(operatingSystems.values);
+        status.setTenancies(tenancies.values);
+        status.setPurchaseOptions(purchaseOptions.values);
+        return status;
+    }
+
+    private int slot(long key) {
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long pack(int type, int region, int os, int tenancy, int purchaseOption) {
+        return ((long) type << (REGION_BITS + 3 * SMALL_BITS))
+                | ((long) region << (3 * SMALL_BITS))
+                | ((long) os << (2 * SMALL_BITS))
+                | ((long) tenancy << SMALL_BITS)
+                | purchaseOption;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /** Interned values of one dimension, in first-seen order. */
+    private static final class Dimension {
+        private final int limit;
+        private final Map<String, Integer> index;
+        private final List<String> values;
+
+        private Dimension(int bits) {
+            this(1 << bits, new HashMap<>(), new ArrayList<>());
+        }
+
+        private Dimension(int limit, Map<String, Integer> index, List<String> values) {
+            this.limit = limit;
+            this.index = index;
+            this.values = values;
+        }
+
+        private Dimension freeze() {
+            return new Dimension(limit, Map.copyOf(index), List.copyOf(values));
+        }
+
+        private int intern(String name, String dimension) {
+            Integer i = index.get(name);
+            if (i != null) {
+                return i;
+            }
+            if (values.size() == limit) {
+                throw new IllegalArgumentException("Too many distinct " + dimension + " values (max " + limit + ")");
+            }
+            index.put(name, values.size());
+            values.add(name);
+            return values.size() - 1;
+        }
+
+        private int indexOf(String name) {
+            Integer i = name != null ? index.get(name) : null;
+            return i != null ? i : MISSING;
+        }
+    }
+
+    /** Collects prices; a later price for the same SKU replaces an earlier one. */
+    public static final class Builder {
+        private final Dimension types = new Dimension(TYPE_BITS);
+        private final Dimension regions = new Dimension(REGION_BITS);
+        private final Dimension operatingSystems = new Dimension(SMALL_BITS);
+        private final Dimension tenancies = new Dimension(SMALL_BITS);
+        private final Dimension purchaseOptions = new Dimension(SMALL_BITS);
+        private long[] keys = new long[1024];
+        private double[] rates = new double[1024];
+        private int size;
+
+        public Builder add(String instanceType, String region, String os, String tenancy, String purchaseOption,
+                           double hourlyRate) {
+            if (instanceType == null || instanceType.isBlank()) {
+                throw new IllegalArgumentException("instanceType is required");
+            }
+            if (!(hourlyRate >= 0.0) || Double.isInfinite(hourlyRate)) {
+                throw new IllegalArgumentException("Invalid hourly rate " + hourlyRate + " for " + instanceType);
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                rates = Arrays.copyOf(rates, size * 2);
+            }
+            keys[size] = pack(types.intern(instanceType, "instance type"),
+                    regions.intern(region, "region"),
+                    operatingSystems.intern(os, "OS"),
+                    tenancies.intern(tenancy, "tenancy"),
+                    purchaseOptions.intern(purchaseOption, "purchase option"));
+            rates[size] = hourlyRate;
+            size++;
+            return this;
+        }
+
+        public PricingCatalog build(String version, String source) {
+            if (size == 0) {
+                throw new IllegalArgumentException("Pricing catalog is empty");
+            }
+            return new PricingCatalog(this, version, source);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.optimizer.cost.pricing;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a {@link PricingCatalog} from CSV or JSON. The catalog version is the
+ * CRC32 of the file content, so an unchanged file always yields the same
+ * version.
+ *
+ * <p>CSV files need a header naming the columns {@code instanceType},
+ * {@code region}, {@code os}, {@code tenancy}, {@code purchaseOption} and
+ * {@code hourlyRate}, in any order; lines starting with {@code #} are
+ * skipped. Files are memory-mapped and parsed in place. JSON files hold an
+ * array of objects with the same fields and are read with a streaming parser.
+ * Missing dimensions fall back to the configured defaults.
+ */
+public class PricingCatalogLoader {
+
+    private static final String[] COLUMNS = {"instanceType", "region", "os", "tenancy", "purchaseOption", "hourlyRate"};
+
+    private final ObjectMapper objectMapper;
+    private final PriceDefaults defaults;
+
+    @Data
+    public static class PriceDefaults {
+        private String region = "us-east-1";
+        private String os = "Linux";
+        private String tenancy = "Shared";
+        private String purchaseOption = "OnDemand";
+    }
+
+    @Data
+    private static class PriceEntry {
+        private String instanceType;
+        private String region;
+        private String os;
+        private String tenancy;
+        private String purchaseOption;
+        private double hourlyRate;
+    }
+
+    public PricingCatalogLoader(ObjectMapper objectMapper, PriceDefaults defaults) {
+        this.objectMapper = objectMapper;
+        this.defaults = defaults;
+    }
+
+    public PricingCatalog load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return load(buffer, path.toString());
+        }
+    }
+
+    public PricingCatalog load(InputStream in, String source) throws IOException {
+        return load(ByteBuffer.wrap(in.readAllBytes()), source);
+    }
+
+    private PricingCatalog load(ByteBuffer content, String source) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(content.duplicate());
+        String version = Long.toHexString(crc.getValue());
+        PricingCatalog.Builder builder = new PricingCatalog.Builder();
+        if (source.toLowerCase(Locale.ROOT).endsWith(".json")) {
+            readJson(content, builder);
+        } else {
+            readCsv(content, builder);
+        }
+        return builder.build(version, source);
+    }
+
+    private void readJson(ByteBuffer content, PricingCatalog.Builder builder) throws IOException {
+        byte[] bytes;
+        if (content.hasArray()) {
+            bytes = content.array();
+        } else {
+            bytes = new byte[content.remaining()];
+            content.duplicate().get(bytes);
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Pricing catalog JSON must be an array");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                add(builder, objectMapper.readValue(parser, PriceEntry.class));
+            }
+        }
+    }
+
+    private void readCsv(ByteBuffer content, PricingCatalog.Builder builder) {
+        int[] columns = null;
+        List<String> fields = new ArrayList<>(COLUMNS.length);
+        int lineNumber = 0;
+        int pos = content.position();
+        int end = content.limit();
+        while (pos < end) {
+            int lineEnd = pos;
+            while (lineEnd < end && content.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            lineNumber++;
+            split(content, pos, lineEnd, fields);
+            pos = lineEnd + 1;
+            if (fields.isEmpty() || fields.get(0).startsWith("#")) {
+                continue;
+            }
+            if (columns == null) {
+                columns = header(fields);
+                continue;
+            }
+            try {
+                PriceEntry entry = new PriceEntry();
+                entry.setInstanceType(field(fields, columns[0]));
+                entry.setRegion(field(fields, columns[1]));
+                entry.setOs(field(fields, columns[2]));
+                entry.setTenancy(field(fields, columns[3]));
+                entry.setPurchaseOption(field(fields, columns[4]));
+                entry.setHourlyRate(Double.parseDouble(field(fields, columns[5])));
+                add(builder, entry);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid pricing catalog line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        if (columns == null) {
+            throw new IllegalArgumentException("Pricing catalog CSV has no header");
+        }
+    }
+
+    private void add(PricingCatalog.Builder builder, PriceEntry entry) {
+        builder.add(entry.getInstanceType(),
+                orDefault(entry.getRegion(), defaults.getRegion()),
+                orDefault(entry.getOs(), defaults.getOs()),
+                orDefault(entry.getTenancy(), defaults.getTenancy()),
+                orDefault(entry.getPurchaseOption(), defaults.getPurchaseOption()),
+                entry.getHourlyRate());
+    }
+
+    private static int[] header(List<String> fields) {
+        int[] columns = new int[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            columns[c] = fields.indexOf(COLUMNS[c]);
+        }
+        if (columns[0] < 0 || columns[5] < 0) {
+            throw new IllegalArgumentException("Pricing catalog CSV header needs instanceType and hourlyRate");
+        }
+        return columns;
+    }
+
+    /** Splits one line into trimmed fields, reading bytes straight from the buffer. */
+    private static void split(ByteBuffer content, int from, int to, List<String> fields) {
+        fields.clear();
+        if (to > from && content.get(to - 1) == '\r') {
+            to--;
+        }
+        int start = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || content.get(i) == ',') {
+                byte[] bytes = new byte[i - start];
+                content.get(start, bytes);
+                fields.add(new String(bytes, StandardCharsets.UTF_8).trim());
+                start = i + 1;
+            }
+        }
+        if (fields.size() == 1 && fields.get(0).isEmpty()) {
+            fields.clear();
+        }
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column >= 0 && column < fields.size() ? fields.get(column) : null;
+    }
+
+    private static String orDefault(String value, String fallback) {
+        return value == null || value.isBlank() ? fallback : value;
+    }
+}
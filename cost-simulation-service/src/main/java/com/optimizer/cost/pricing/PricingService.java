@@ -1,24 +1,165 @@
 package com.optimizer.cost.pricing;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import java.util.HashMap;
-import java.util.Map;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Holds the active {@link PricingCatalog}. Prices come from the bundled
+ * {@code pricing/default-catalog.csv} or, when configured, from the CSV or
+ * JSON file at {@code cost.pricing.catalog-file}, which is polled and reloaded
+ * when its modification time changes. A new catalog is built off to the side
+ * and swapped in with a single volatile write, so readers never block; a
+ * catalog that fails to load is rejected and the previous one stays active.
+ */
+@Slf4j
 @Service
 public class PricingService {
-    
-    private final Map<String, Double> hourlyRates = new HashMap<>();
 
-    public PricingService() {
-        // Mock Pricing (USD per hour)
-        hourlyRates.put("t2.micro", 0.0116);
-        hourlyRates.put("t2.small", 0.023);
-        hourlyRates.put("t2.medium", 0.0464);
-        hourlyRates.put("m5.large", 0.096);
-        hourlyRates.put("m5.xlarge", 0.192);
+    private static final String DEFAULT_CATALOG = "pricing/default-catalog.csv";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${cost.pricing.catalog-file:}")
+    private String catalogFile;
+    @Value("${cost.pricing.default-region:us-east-1}")
+    private String defaultRegion;
+    @Value("${cost.pricing.default-os:Linux}")
+    private String defaultOs;
+    @Value("${cost.pricing.default-tenancy:Shared}")
+    private String defaultTenancy;
+    @Value("${cost.pricing.default-purchase-option:OnDemand}")
+    private String defaultPurchaseOption;
+
+    private PricingCatalogLoader loader;
+    private volatile PricingCatalog catalog;
+    private volatile long fileModified = -1;
+
+    @PostConstruct
+    public void init() throws IOException {
+        PricingCatalogLoader.PriceDefaults defaults = new PricingCatalogLoader.PriceDefaults();
+        defaults.setRegion(defaultRegion);
+        defaults.setOs(defaultOs);
+        defaults.setTenancy(defaultTenancy);
+        defaults.setPurchaseOption(defaultPurchaseOption);
+        loader = new PricingCatalogLoader(objectMapper, defaults);
+        catalog = load();
+    }
+
+    /**
+     * Returns the active catalog. Callers that do several lookups should hold
+     * on to one snapshot so a concurrent reload cannot mix two catalogs.
+     */
+    public PricingCatalog getCatalog() {
+        return catalog;
+    }
+
+    public synchronized PricingCatalog.CatalogStatus reload() throws IOException {
+        catalog = load();
+        PricingCatalog.CatalogStatus status = catalog.getStatus();
+        log.info("Loaded pricing catalog {} ({} SKUs) from {}", status.getVersion(), status.getSkus(), status.getSource());
+        return status;
+    }
+
+    @Scheduled(fixedDelayString = "${cost.pricing.poll-ms:30000}")
+    public void pollCatalogFile() {
+        if (catalogFile == null || catalogFile.isBlank()) {
+            return;
+        }
+        Path path = Path.of(catalogFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            if (Files.getLastModifiedTime(path).toMillis() != fileModified) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Keeping current pricing catalog, could not reload {}: {}", catalogFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Hourly rate of an instance type for the default region, OS, tenancy and
+     * purchase option.
+     */
+    public double getHourlyRate(String instanceType) {
+        return getHourlyRate(instanceType, null, null, null, null);
+    }
+
+    /**
+     * Hourly rate of one SKU. Null dimensions use the configured defaults.
+     *
+     * @throws UnknownInstanceTypeException if the catalog has no such price
+     */
+    public double getHourlyRate(String instanceType, String region, String os, String tenancy,
+                                String purchaseOption) {
+        double rate = findHourlyRate(instanceType, region, os, tenancy, purchaseOption);
+        if (Double.isNaN(rate)) {
+            throw new UnknownInstanceTypeException(instanceType,
+                    region != null ? region : defaultRegion, os != null ? os : defaultOs,
+                    tenancy != null ? tenancy : defaultTenancy,
+                    purchaseOption != null ? purchaseOption : defaultPurchaseOption);
+        }
+        return rate;
+    }
+
+    /**
+     * Like {@link #getHourlyRate(String, String, String, String, String)} but
+     * returns NaN when the catalog has no such price.
+     */
+    public double findHourlyRate(String instanceType, String region, String os, String tenancy,
+                                 String purchaseOption) {
+        PricingCatalog c = catalog;
+        return c.rate(c.typeIndex(instanceType),
+                c.regionIndex(region != null ? region : defaultRegion),
+                c.osIndex(os != null ? os : defaultOs),
+                c.tenancyIndex(tenancy != null ? tenancy : defaultTenancy),
+                c.purchaseOptionIndex(purchaseOption != null ? purchaseOption : defaultPurchaseOption));
+    }
+
+    public List<String> getInstanceTypes() {
+        return catalog.getInstanceTypes();
+    }
+
+    public String getDefaultRegion() {
+        return defaultRegion;
+    }
+
+    public String getDefaultOs() {
+        return defaultOs;
+    }
+
+    public String getDefaultTenancy() {
+        return defaultTenancy;
+    }
+
+    public String getDefaultPurchaseOption() {
+        return defaultPurchaseOption;
     }
 
-    public Double getHourlyRate(String instanceType) {
-        return hourlyRates.getOrDefault(instanceType, 0.0);
+    private PricingCatalog load() throws IOException {
+        if (catalogFile != null && !catalogFile.isBlank() && Files.exists(Path.of(catalogFile))) {
+            Path path = Path.of(catalogFile);
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            PricingCatalog loaded = loader.load(path);
+            fileModified = modified;
+            return loaded;
+        }
+        try (InputStream in = new ClassPathResource(DEFAULT_CATALOG).getInputStream()) {
+            return loader.load(in, DEFAULT_CATALOG);
+        }
     }
 }
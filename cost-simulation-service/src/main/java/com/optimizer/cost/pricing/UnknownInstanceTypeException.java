@@ -0,0 +1,19 @@
+package com.optimizer.cost.pricing;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when the pricing catalog has no price for a requested SKU, so callers
+ * get a 400 instead of a silent $0.00 rate.
+ */
+public class UnknownInstanceTypeException extends ResponseStatusException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnknownInstanceTypeException(String instanceType, String region, String os, String tenancy,
+                                        String purchaseOption) {
+        super(HttpStatus.BAD_REQUEST, "No price for instance type '" + instanceType + "' (" + region + ", " + os
+                + ", " + tenancy + ", " + purchaseOption + ")");
+    }
+}
@@ -0,0 +1,36 @@
+package com.optimizer.cost.repository;
+
+import com.optimizer.cost.model.CostSavingsDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Savings totals over whole days, {@code from} inclusive and {@code to}
+ * exclusive. Each row is {group, simulations, current, projected, savings}.
+ */
+public interface CostSavingsDailyRepository extends JpaRepository<CostSavingsDaily, CostSavingsDaily.Key> {
+
+    @Query("SELECT '', COALESCE(SUM(d.simulations), 0), COALESCE(SUM(d.currentMonthlyCost), 0),"
+            + " COALESCE(SUM(d.projectedMonthlyCost), 0), COALESCE(SUM(d.monthlySavings), 0)"
+            + " FROM CostSavingsDaily d WHERE d.bucketDate >= :from AND d.bucketDate < :to")
+    List<Object[]> sumBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT d.action, SUM(d.simulations), SUM(d.currentMonthlyCost), SUM(d.projectedMonthlyCost),"
+            + " SUM(d.monthlySavings) FROM CostSavingsDaily d WHERE d.bucketDate >= :from AND d.bucketDate < :to"
+            + " GROUP BY d.action")
+    List<Object[]> sumByActionBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT d.instanceType, SUM(d.simulations), SUM(d.currentMonthlyCost), SUM(d.projectedMonthlyCost),"
+            + " SUM(d.monthlySavings) FROM CostSavingsDaily d WHERE d.bucketDate >= :from AND d.bucketDate < :to"
+            + " GROUP BY d.instanceType")
+    List<Object[]> sumByInstanceTypeBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT d.bucketDate, SUM(d.simulations), SUM(d.currentMonthlyCost), SUM(d.projectedMonthlyCost),"
+            + " SUM(d.monthlySavings) FROM CostSavingsDaily d WHERE d.bucketDate >= :from AND d.bucketDate < :to"
+            + " GROUP BY d.bucketDate ORDER BY d.bucketDate")
+    List<Object[]> sumByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -2,9 +2,32 @@ package com.optimizer.cost.repository;
 
 import com.optimizer.cost.model.CostSimulationHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * The aggregate queries return rows of {group, simulations, current,
+ * projected, savings} over {@code from} inclusive to {@code to} exclusive and
+ * are range scans on the created_at index.
+ */
 public interface CostSimulationHistoryRepository extends JpaRepository<CostSimulationHistory, Long> {
-    List<CostSimulationHistory> findByCreatedAtAfter(LocalDateTime since);
+
+    @Query("SELECT '', COUNT(h), COALESCE(SUM(h.currentMonthlyCost), 0), COALESCE(SUM(h.projectedMonthlyCost), 0),"
+            + " COALESCE(SUM(h.monthlySavings), 0)"
+            + " FROM CostSimulationHistory h WHERE h.createdAt >= :from AND h.createdAt < :to")
+    List<Object[]> sumBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT h.action, COUNT(h), COALESCE(SUM(h.currentMonthlyCost), 0), COALESCE(SUM(h.projectedMonthlyCost), 0),"
+            + " COALESCE(SUM(h.monthlySavings), 0)"
+            + " FROM CostSimulationHistory h WHERE h.createdAt >= :from AND h.createdAt < :to GROUP BY h.action")
+    List<Object[]> sumByActionBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT h.currentInstanceType, COUNT(h), COALESCE(SUM(h.currentMonthlyCost), 0),"
+            + " COALESCE(SUM(h.projectedMonthlyCost), 0), COALESCE(SUM(h.monthlySavings), 0)"
+            + " FROM CostSimulationHistory h WHERE h.createdAt >= :from AND h.createdAt < :to"
+            + " GROUP BY h.currentInstanceType")
+    List<Object[]> sumByInstanceTypeBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,134 @@
+package com.optimizer.cost.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Username/password authentication that pays the BCrypt cost once per
+ * {@code security.auth-cache.ttl} per user rather than on every Basic
+ * request. After a successful check the provider remembers an HMAC of the
+ * credentials under a per-process random key, never the password itself;
+ * later requests that present the same credentials are matched against it
+ * in constant time. Failed attempts are not cached, so guessing still costs
+ * a full hash. The cache is an LRU bounded by
+ * {@code security.auth-cache.max-entries}.
+ */
+@Component
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${security.auth-cache.ttl:PT5M}")
+    private Duration ttl;
+    @Value("${security.auth-cache.max-entries:1000}")
+    private int maxEntries;
+
+    private DaoAuthenticationProvider delegate;
+    private SecretKeySpec cacheKey;
+    private Map<String, Entry> cache;
+    private long hits;
+    private long misses;
+
+    private record Entry(byte[] digest, Object principal, Collection<? extends GrantedAuthority> authorities,
+                         long expiresAt) {
+    }
+
+    @Data
+    public static class Stats {
+        private int entries;
+        private long hits;
+        private long misses;
+    }
+
+    @PostConstruct
+    public void init() {
+        delegate = new DaoAuthenticationProvider();
+        delegate.setUserDetailsService(userDetailsService);
+        delegate.setPasswordEncoder(passwordEncoder);
+        byte[] material = new byte[32];
+        new SecureRandom().nextBytes(material);
+        cacheKey = new SecretKeySpec(material, ALGORITHM);
+        cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (username == null || credentials == null) {
+            return delegate.authenticate(authentication);
+        }
+        byte[] digest = digest(username, credentials.toString());
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = cache.get(username);
+            if (entry != null && entry.expiresAt() > now && MessageDigest.isEqual(entry.digest(), digest)) {
+                hits++;
+                return UsernamePasswordAuthenticationToken.authenticated(entry.principal(), null, entry.authorities());
+            }
+            misses++;
+        }
+        Authentication result = delegate.authenticate(authentication);
+        synchronized (this) {
+            cache.put(username, new Entry(digest, result.getPrincipal(), result.getAuthorities(), now + ttl.toMillis()));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    public synchronized Stats getStats() {
+        Stats s = new Stats();
+        s.setEntries(cache.size());
+        s.setHits(hits);
+        s.setMisses(misses);
+        return s;
+    }
+
+    private byte[] digest(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(cacheKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        }
+    }
+}
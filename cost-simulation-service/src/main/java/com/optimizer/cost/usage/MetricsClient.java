@@ -0,0 +1,81 @@
+package com.optimizer.cost.usage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Reads hourly CPU rollups from the metrics collector.
+ */
+@Component
+public class MetricsClient {
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Value("${cost.usage.metrics-url:http://metrics-collector-service:8081}")
+    private String metricsUrl;
+
+    private RestTemplate restTemplate;
+
+    @PostConstruct
+    public void init() {
+        restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofSeconds(2))
+                .setReadTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    /**
+     * Returns one average-CPU value per hour of {@code [from, to)}; hours
+     * without samples are NaN.
+     */
+    public double[] hourlyCpu(String resourceId, LocalDateTime from, LocalDateTime to) {
+        int hours = (int) Duration.between(from, to).toHours();
+        double[] cpu = new double[Math.max(0, hours)];
+        Arrays.fill(cpu, Double.NaN);
+        URI uri = UriComponentsBuilder.fromHttpUrl(metricsUrl)
+                .pathSegment("metrics", resourceId, "rollup")
+                .queryParam("step", "1h")
+                .queryParam("from", from)
+                .queryParam("to", to)
+                .build()
+                .encode()
+                .toUri();
+        JsonNode response;
+        try {
+            response = restTemplate.getForObject(uri, JsonNode.class);
+        } catch (RestClientException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY,
+                    "Could not read metrics of " + resourceId + ": " + e.getMessage());
+        }
+        if (response == null || !response.path("data").isArray()) {
+            return cpu;
+        }
+        for (JsonNode bucket : response.path("data")) {
+            JsonNode avgCpu = bucket.path("avgCpu");
+            if (!avgCpu.isNumber()) {
+                continue;
+            }
+            LocalDateTime start = LocalDateTime.parse(bucket.path("bucketStart").asText());
+            int hour = (int) Duration.between(from, start).toHours();
+            if (hour >= 0 && hour < cpu.length) {
+                cpu[hour] = avgCpu.asDouble();
+            }
+        }
+        return cpu;
+    }
+}
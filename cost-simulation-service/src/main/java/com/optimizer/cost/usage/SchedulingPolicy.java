@@ -0,0 +1,15 @@
+package com.optimizer.cost.usage;
+
+/**
+ * How an instance would be run over its observed usage.
+ */
+public enum SchedulingPolicy {
+    /** Billed every hour at the on-demand rate; the baseline for savings. */
+    ALWAYS_ON,
+    /** Billed only during configured business hours. */
+    BUSINESS_HOURS,
+    /** Stopped in every hour whose average CPU is below the idle threshold. */
+    SCALE_TO_ZERO,
+    /** Billed every hour at the spot rate, plus rework after interruptions. */
+    SPOT
+}
@@ -0,0 +1,294 @@
+package com.optimizer.cost.usage;
+
+import com.optimizer.cost.pricing.PricingService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Projects what an instance would cost under each {@link SchedulingPolicy},
+ * given its observed hourly CPU. All policies are evaluated in one pass over
+ * the primitive series: the hour of the week advances as a counter and indexes
+ * a precomputed business-hours mask, so the loop only does array reads and
+ * additions. Period costs are scaled to a 720-hour month so series of any
+ * length can be compared with the flat simulation.
+ */
+@Service
+public class UsageCostService {
+
+    private static final double HOURS_PER_MONTH = 24 * 30;
+    private static final int HOURS_PER_WEEK = 7 * 24;
+
+    @Autowired
+    private PricingService pricingService;
+    @Autowired
+    private MetricsClient metricsClient;
+
+    @Value("${cost.usage.business-hours.start:8}")
+    private int businessStart;
+    @Value("${cost.usage.business-hours.end:18}")
+    private int businessEnd;
+    @Value("${cost.usage.business-hours.days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}")
+    private Set<DayOfWeek> businessDays;
+    @Value("${cost.usage.idle-cpu-threshold:5.0}")
+    private double idleCpuThreshold;
+    @Value("${cost.usage.spot.purchase-option:Spot}")
+    private String spotPurchaseOption;
+    @Value("${cost.usage.spot.interruption-rate:0.01}")
+    private double defaultInterruptionRate;
+    @Value("${cost.usage.spot.rework-hours:0.5}")
+    private double reworkHours;
+    @Value("${cost.usage.default-window-days:30}")
+    private int defaultWindowDays;
+    @Value("${cost.usage.fleet.parallelism:8}")
+    private int fleetParallelism;
+    @Value("${cost.usage.fleet.queue-capacity:1000}")
+    private int fleetQueueCapacity;
+
+    private boolean[] businessHourOfWeek;
+    private ThreadPoolExecutor fleetExecutor;
+
+    @Data
+    public static class UsageCostRequest {
+        private String resourceId;
+        private String instanceType;
+        private String region; // pricing dimensions; null uses the catalog defaults
+        private String os;
+        private String tenancy;
+        private LocalDateTime start; // hour of hourlyCpu[0]
+        private double[] hourlyCpu; // missing: read hourly rollups of resourceId for [from, to)
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private List<SchedulingPolicy> policies; // missing: all
+        private Double interruptionRate; // per hour, for SPOT
+    }
+
+    @Data
+    public static class PolicyCost {
+        private SchedulingPolicy policy;
+        private double hourlyRate;
+        private double billedHours;
+        private double periodCost;
+        private double monthlyCost;
+        private double monthlySavings;
+        private double savingsPercentage;
+    }
+
+    @Data
+    public static class UsageCostResult {
+        private String resourceId;
+        private String instanceType;
+        private LocalDateTime start;
+        private int hours;
+        private int idleHours;
+        private int businessHours;
+        private double offHoursCpuHours; // CPU-hours of work BUSINESS_HOURS would not run
+        private List<PolicyCost> policies;
+    }
+
+    @Data
+    public static class FleetUsageCostResult {
+        private int resources; // simulated successfully; totals cover only these
+        private int failed;
+        private Map<SchedulingPolicy, Double> monthlyCost = new EnumMap<>(SchedulingPolicy.class);
+        private Map<SchedulingPolicy, Double> monthlySavings = new EnumMap<>(SchedulingPolicy.class);
+        private List<UsageCostResult> results;
+        private List<ResourceError> errors;
+    }
+
+    @Data
+    public static class ResourceError {
+        private String resourceId;
+        private String instanceType;
+        private int status;
+        private String message;
+    }
+
+    @PostConstruct
+    public void init() {
+        businessHourOfWeek = new boolean[HOURS_PER_WEEK];
+        for (DayOfWeek day : businessDays) {
+            for (int hour = businessStart; hour < businessEnd; hour++) {
+                businessHourOfWeek[(day.getValue() - 1) * 24 + hour] = true;
+            }
+        }
+        AtomicInteger threads = new AtomicInteger();
+        fleetExecutor = new ThreadPoolExecutor(fleetParallelism, fleetParallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fleetQueueCapacity), r -> {
+                    Thread t = new Thread(r, "usage-cost-fleet-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fleetExecutor.shutdown();
+    }
+
+    public UsageCostResult simulate(UsageCostRequest request) {
+        if (request.getInstanceType() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "instanceType is required");
+        }
+        LocalDateTime start;
+        double[] cpu;
+        if (request.getHourlyCpu() != null) {
+            if (request.getStart() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "start is required with hourlyCpu");
+            }
+            start = request.getStart().truncatedTo(ChronoUnit.HOURS);
+            cpu = request.getHourlyCpu();
+        } else {
+            if (request.getResourceId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "hourlyCpu or resourceId is required");
+            }
+            LocalDateTime to = (request.getTo() != null ? request.getTo() : LocalDateTime.now())
+                    .truncatedTo(ChronoUnit.HOURS);
+            start = (request.getFrom() != null ? request.getFrom() : to.minusDays(defaultWindowDays))
+                    .truncatedTo(ChronoUnit.HOURS);
+            cpu = metricsClient.hourlyCpu(request.getResourceId(), start, to);
+        }
+        if (cpu.length == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usage series is empty");
+        }
+
+        // Single pass; NaN hours (no samples) count as busy, so gaps never look like savings.
+        int hourOfWeek = (start.getDayOfWeek().getValue() - 1) * 24 + start.getHour();
+        int businessHours = 0;
+        int idleHours = 0;
+        double offHoursCpu = 0.0;
+        for (double c : cpu) {
+            boolean business = businessHourOfWeek[hourOfWeek];
+            if (business) {
+                businessHours++;
+            } else if (c > 0) {
+                offHoursCpu += c;
+            }
+            if (c < idleCpuThreshold) {
+                idleHours++;
+            }
+            hourOfWeek = hourOfWeek == HOURS_PER_WEEK - 1 ? 0 : hourOfWeek + 1;
+        }
+
+        int hours = cpu.length;
+        double onDemandRate = pricingService.getHourlyRate(request.getInstanceType(), request.getRegion(),
+                request.getOs(), request.getTenancy(), null);
+        double baseline = hours * onDemandRate;
+        List<PolicyCost> policies = new ArrayList<>();
+        for (SchedulingPolicy policy : request.getPolicies() != null && !request.getPolicies().isEmpty()
+                ? request.getPolicies() : List.of(SchedulingPolicy.values())) {
+            double rate = onDemandRate;
+            double billed;
+            switch (policy) {
+                case ALWAYS_ON -> billed = hours;
+                case BUSINESS_HOURS -> billed = businessHours;
+                case SCALE_TO_ZERO -> billed = hours - idleHours;
+                case SPOT -> {
+                    rate = pricingService.findHourlyRate(request.getInstanceType(), request.getRegion(),
+                            request.getOs(), request.getTenancy(), spotPurchaseOption);
+                    double interruptions = request.getInterruptionRate() != null
+                            ? request.getInterruptionRate() : defaultInterruptionRate;
+                    billed = hours * (1 + interruptions * reworkHours);
+                }
+                default -> throw new IllegalStateException("Unhandled policy " + policy);
+            }
+            if (Double.isNaN(rate)) {
+                continue; // no spot price for this SKU
+            }
+            policies.add(toPolicyCost(policy, rate, billed, baseline, hours));
+        }
+
+        UsageCostResult result = new UsageCostResult();
+        result.setResourceId(request.getResourceId());
+        result.setInstanceType(request.getInstanceType());
+        result.setStart(start);
+        result.setHours(hours);
+        result.setIdleHours(idleHours);
+        result.setBusinessHours(businessHours);
+        result.setOffHoursCpuHours(offHoursCpu / 100.0);
+        result.setPolicies(policies);
+        return result;
+    }
+
+    /**
+     * Simulates every resource on a dedicated pool of
+     * {@code cost.usage.fleet.parallelism} threads, since most simulations
+     * block on the metrics collector, and sums the monthly cost and savings of
+     * each policy across the resources that succeeded. A resource that fails
+     * is reported in {@code errors} instead of failing the whole fleet.
+     */
+    public FleetUsageCostResult simulateFleet(List<UsageCostRequest> requests) {
+        List<CompletableFuture<UsageCostResult>> tasks = new ArrayList<>(requests.size());
+        for (UsageCostRequest request : requests) {
+            tasks.add(CompletableFuture.supplyAsync(() -> simulate(request), fleetExecutor));
+        }
+        FleetUsageCostResult fleet = new FleetUsageCostResult();
+        List<UsageCostResult> results = new ArrayList<>(requests.size());
+        List<ResourceError> errors = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                UsageCostResult r = tasks.get(i).join();
+                for (PolicyCost p : r.getPolicies()) {
+                    fleet.getMonthlyCost().merge(p.getPolicy(), p.getMonthlyCost(), Double::sum);
+                    fleet.getMonthlySavings().merge(p.getPolicy(), p.getMonthlySavings(), Double::sum);
+                }
+                results.add(r);
+            } catch (CompletionException e) {
+                errors.add(toError(requests.get(i), e.getCause() != null ? e.getCause() : e));
+            }
+        }
+        fleet.setResources(results.size());
+        fleet.setFailed(errors.size());
+        fleet.setResults(results);
+        fleet.setErrors(errors);
+        return fleet;
+    }
+
+    private static ResourceError toError(UsageCostRequest request, Throwable cause) {
+        ResourceError error = new ResourceError();
+        error.setResourceId(request.getResourceId());
+        error.setInstanceType(request.getInstanceType());
+        if (cause instanceof ResponseStatusException rse) {
+            error.setStatus(rse.getStatusCode().value());
+            error.setMessage(rse.getReason());
+        } else {
+            error.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            error.setMessage(cause.getMessage());
+        }
+        return error;
+    }
+
+    private static PolicyCost toPolicyCost(SchedulingPolicy policy, double rate, double billed, double baseline,
+                                           int hours) {
+        PolicyCost cost = new PolicyCost();
+        cost.setPolicy(policy);
+        cost.setHourlyRate(rate);
+        cost.setBilledHours(billed);
+        cost.setPeriodCost(billed * rate);
+        double scale = HOURS_PER_MONTH / hours;
+        cost.setMonthlyCost(billed * rate * scale);
+        cost.setMonthlySavings((baseline - billed * rate) * scale);
+        cost.setSavingsPercentage(baseline > 0 ? (baseline - billed * rate) / baseline * 100 : 0.0);
+        return cost;
+    }
+}
@@ -0,0 +1,80 @@
+package com.optimizer.cost.calculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class TopKTest {
+
+    private static int[] select(double[] scores, int k) {
+        TopK top = new TopK(scores, k);
+        for (int i = 0; i < scores.length; i++) {
+            top.offer(i);
+        }
+        return top.toSortedArray();
+    }
+
+    private static int[] sortAll(double[] scores, int k) {
+        return IntStream.range(0, scores.length).boxed()
+                .sorted(Comparator.<Integer>comparingDouble(i -> scores[i]).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    @Test
+    void keepsHighestScoresBestFirst() {
+        double[] scores = {5, 1, 9, 3, 7, 2};
+
+        assertArrayEquals(new int[]{2, 4, 0}, select(scores, 3));
+    }
+
+    @Test
+    void tiesGoToLowerIndex() {
+        double[] scores = {4, 8, 4, 8, 4};
+
+        assertArrayEquals(new int[]{1, 3, 0}, select(scores, 3));
+    }
+
+    @Test
+    void returnsEverythingWhenFewerThanK() {
+        assertArrayEquals(new int[]{1, 0}, select(new double[]{1, 2}, 5));
+        assertArrayEquals(new int[0], select(new double[]{1, 2}, 0));
+        assertArrayEquals(new int[0], select(new double[0], 3));
+    }
+
+    @Test
+    void matchesFullSortOnRandomInput() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            double[] scores = new double[1 + random.nextInt(500)];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = random.nextInt(50);
+            }
+            int k = random.nextInt(20);
+
+            assertArrayEquals(sortAll(scores, k), select(scores, k));
+        }
+    }
+
+    @Test
+    void mergeCombinesPartialSelections() {
+        Random random = new Random(7);
+        double[] scores = new double[1000];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextDouble();
+        }
+        TopK first = new TopK(scores, 10);
+        TopK second = new TopK(scores, 10);
+        for (int i = 0; i < scores.length; i++) {
+            (i % 2 == 0 ? first : second).offer(i);
+        }
+
+        assertArrayEquals(sortAll(scores, 10), first.merge(second).toSortedArray());
+    }
+}
@@ -0,0 +1,86 @@
+package com.optimizer.cost.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PricingCatalogTest {
+
+    private static double rate(PricingCatalog catalog, String type, String region, String os, String tenancy,
+                               String purchaseOption) {
+        return catalog.rate(catalog.typeIndex(type), catalog.regionIndex(region), catalog.osIndex(os),
+                catalog.tenancyIndex(tenancy), catalog.purchaseOptionIndex(purchaseOption));
+    }
+
+    @Test
+    void looksUpEveryCombinationAdded() {
+        PricingCatalog.Builder builder = new PricingCatalog.Builder();
+        String[] regions = {"us-east-1", "eu-west-1", "ap-south-1"};
+        String[] systems = {"Linux", "Windows"};
+        String[] options = {"OnDemand", "Reserved"};
+        for (int t = 0; t < 500; t++) {
+            for (int r = 0; r < regions.length; r++) {
+                for (int o = 0; o < systems.length; o++) {
+                    for (int p = 0; p < options.length; p++) {
+                        builder.add("type-" + t, regions[r], systems[o], "Shared", options[p], t + r * 0.1 + o * 0.01 + p * 0.001);
+                    }
+                }
+            }
+        }
+        PricingCatalog catalog = builder.build("v1", "test");
+
+        for (int t = 0; t < 500; t++) {
+            for (int r = 0; r < regions.length; r++) {
+                for (int o = 0; o < systems.length; o++) {
+                    for (int p = 0; p < options.length; p++) {
+                        assertEquals(t + r * 0.1 + o * 0.01 + p * 0.001,
+                                rate(catalog, "type-" + t, regions[r], systems[o], "Shared", options[p]));
+                    }
+                }
+            }
+        }
+        assertEquals(500 * 3 * 2 * 2, catalog.getStatus().getSkus());
+        assertEquals(List.of(regions), catalog.getRegions());
+        assertEquals(500, catalog.getInstanceTypes().size());
+    }
+
+    @Test
+    void missingDimensionsAndCombinationsAreNaN() {
+        PricingCatalog catalog = new PricingCatalog.Builder()
+                .add("t3.micro", "us-east-1", "Linux", "Shared", "OnDemand", 0.0104)
+                .add("m5.large", "eu-west-1", "Linux", "Shared", "OnDemand", 0.107)
+                .build("v1", "test");
+
+        assertEquals(PricingCatalog.MISSING, catalog.typeIndex("x1.32xlarge"));
+        assertEquals(PricingCatalog.MISSING, catalog.regionIndex(null));
+        assertTrue(Double.isNaN(rate(catalog, "x1.32xlarge", "us-east-1", "Linux", "Shared", "OnDemand")));
+        assertTrue(Double.isNaN(rate(catalog, "t3.micro", "eu-west-1", "Linux", "Shared", "OnDemand")));
+        assertTrue(Double.isNaN(catalog.rate(0, 0, 0, 0, PricingCatalog.MISSING)));
+        assertEquals(0.0104, rate(catalog, "t3.micro", "us-east-1", "Linux", "Shared", "OnDemand"));
+    }
+
+    @Test
+    void laterPriceReplacesEarlierOne() {
+        PricingCatalog catalog = new PricingCatalog.Builder()
+                .add("t3.micro", "us-east-1", "Linux", "Shared", "OnDemand", 0.0104)
+                .add("t3.micro", "us-east-1", "Linux", "Shared", "OnDemand", 0.0116)
+                .build("v1", "test");
+
+        assertEquals(0.0116, rate(catalog, "t3.micro", "us-east-1", "Linux", "Shared", "OnDemand"));
+        assertEquals(1, catalog.getStatus().getSkus());
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        PricingCatalog.Builder builder = new PricingCatalog.Builder();
+
+        assertThrows(IllegalArgumentException.class, () -> builder.add(" ", "us-east-1", "Linux", "Shared", "OnDemand", 1.0));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("t3.micro", "us-east-1", "Linux", "Shared", "OnDemand", -1.0));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("t3.micro", "us-east-1", "Linux", "Shared", "OnDemand", Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> builder.build("v1", "test"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.optimizer.cost.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenServiceTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private TokenService tokenService;
+    private Authentication user;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = newTokenService(SECRET);
+        user = UsernamePasswordAuthenticationToken.authenticated("alice", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+    }
+
+    private static TokenService newTokenService(String secret) {
+        TokenService service = new TokenService();
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "secret", secret);
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(service, "issuer", "cloud-optimizer");
+        service.init();
+        return service;
+    }
+
+    @Test
+    void verifyAcceptsIssuedToken() {
+        TokenService.IssuedToken issued = tokenService.issue(user);
+        Authentication authentication = tokenService.verify(issued.getAccessToken());
+
+        assertNotNull(authentication);
+        assertTrue(authentication.isAuthenticated());
+        assertEquals("alice", authentication.getName());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"), authentication.getAuthorities());
+        assertEquals(900, issued.getExpiresIn());
+    }
+
+    @Test
+    void verifyRejectsTamperedPayload() {
+        String[] parts = tokenService.issue(user).getAccessToken().split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("alice", "mallory");
+        String forged = parts[0] + "." + encode(payload) + "." + parts[2];
+
+        assertNull(tokenService.verify(forged));
+    }
+
+    @Test
+    void verifyRejectsTokenSignedWithAnotherKey() {
+        String token = newTokenService("fedcba9876543210fedcba9876543210").issue(user).getAccessToken();
+
+        assertNull(tokenService.verify(token));
+    }
+
+    @Test
+    void verifyRejectsExpiredToken() {
+        ReflectionTestUtils.setField(tokenService, "ttl", Duration.ofSeconds(-1));
+        String token = tokenService.issue(user).getAccessToken();
+
+        assertNull(tokenService.verify(token));
+    }
+
+    @Test
+    void verifyRejectsOtherHeaders() {
+        String[] parts = tokenService.issue(user).getAccessToken().split("\\.");
+        String none = encode("{\"alg\":\"none\",\"typ\":\"JWT\"}");
+
+        assertNull(tokenService.verify(none + "." + parts[1] + "."));
+        assertNull(tokenService.verify(none + "." + parts[1] + "." + parts[2]));
+        assertNull(tokenService.verify(encode("{\"typ\":\"JWT\",\"alg\":\"HS256\"}") + "." + parts[1] + "." + parts[2]));
+    }
+
+    @Test
+    void verifyRejectsMalformedTokens() {
+        String token = tokenService.issue(user).getAccessToken();
+
+        assertNull(tokenService.verify(""));
+        assertNull(tokenService.verify("not-a-token"));
+        assertNull(tokenService.verify(token + ".extra"));
+        assertNull(tokenService.verify(token.substring(0, token.lastIndexOf('.') + 1) + "!!!"));
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
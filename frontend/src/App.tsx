@@ -1,5 +1,5 @@
 import { useEffect, useMemo, useState } from "react";
-import { api, AlertRequest, CostSimulationRequest, CostSimulationResult, Metric, Recommendation } from "./api";
+import { api, AlertEvent, AlertRequest, CostSimulationRequest, CostSimulationResult, Metric, Recommendation } from "./api";
 
 type Tab = "dashboard" | "metrics" | "recommendations" | "cost" | "alerts";
 
@@ -56,6 +56,7 @@ export default function App() {
   const [latestRec, setLatestRec] = useState<Recommendation | null>(null);
   const [savingsSummary, setSavingsSummary] = useState<{ totalSavings: number } | null>(null);
   const [alertSuccess, setAlertSuccess] = useState(false);
+  const [liveAlerts, setLiveAlerts] = useState<AlertEvent[]>([]);
 
   function isPlainObject(x: unknown): x is Record<string, unknown> {
     return !!x && typeof x === "object" && !Array.isArray(x);
@@ -329,6 +330,22 @@ export default function App() {
     }
   }, [authed, tab]);
 
+  useEffect(() => {
+    if (!authed || tab !== "dashboard") {
+      return;
+    }
+    return api.subscribeRecommendations((rec) =>
+      setLatestRec((prev) => (!prev || rec.createdAt >= prev.createdAt ? rec : prev))
+    );
+  }, [authed, tab]);
+
+  useEffect(() => {
+    if (!authed || tab !== "alerts") {
+      return;
+    }
+    return api.subscribeAlerts((alert) => setLiveAlerts((prev) => [alert, ...prev].slice(0, 20)));
+  }, [authed, tab]);
+
   useEffect(() => {
     if (authed) {
       setMaxIndex((i) => Math.max(i, order.indexOf("dashboard")));
@@ -704,6 +721,14 @@ export default function App() {
           <div style={{ height: 12 }} />
           {alertSuccess && !error ? <div style={{ color: "var(--success)", fontWeight: 700 }}>🟢 Alert sent successfully</div> : null}
           {error ? <div style={{ color: "var(--danger)", fontWeight: 700 }}>{error}</div> : null}
+          <div style={{ height: 12 }} />
+          <div className="title">Live Alerts</div>
+          {liveAlerts.length === 0 ? <div className="muted">No alerts since this tab was opened.</div> : null}
+          {liveAlerts.map((a) => (
+            <div key={a.id} className="muted">
+              [{a.severity}] {a.recipient}: {a.message}
+            </div>
+          ))}
         </div>
       </div>
     );
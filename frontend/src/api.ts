@@ -36,6 +36,15 @@ export type AlertRequest = {
   severity: string;
 };
 
+export type AlertEvent = {
+  id: number;
+  recipient: string;
+  message: string;
+  severity: string;
+  highlight?: boolean;
+  createdAt: string;
+};
+
 function humanizeMessage(msg: string): string {
   // If it looks like a code (uppercase with underscores), humanize it
   if (/^[A-Z0-9_]+$/.test(msg)) {
@@ -114,6 +123,17 @@ export const api = {
   getLatestRecommendation() {
     return request<Recommendation | null>(`/api/optimize/latest`, { method: "GET" });
   },
+  subscribeRecommendations(onRecommendation: (rec: Recommendation) => void) {
+    const source = new EventSource(`/api/optimize/stream`);
+    source.addEventListener("recommendation", (event) => {
+      try {
+        onRecommendation(JSON.parse((event as MessageEvent).data));
+      } catch {
+        // ignore
+      }
+    });
+    return () => source.close();
+  },
   simulateCost(payload: CostSimulationRequest) {
     return request<CostSimulationResult>(`/api/cost/simulate`, { method: "POST", body: JSON.stringify(payload) });
   },
@@ -128,5 +148,45 @@ export const api = {
   },
   sendAlert(payload: AlertRequest) {
     return request<string>(`/api/alerts/send`, { method: "POST", body: JSON.stringify(payload) });
+  },
+  subscribeAlerts(onAlert: (alert: AlertEvent) => void) {
+    // EventSource cannot send an Authorization header, so the stream is opened
+    // with a short-lived stream token in the URL. The token is only checked on
+    // connect; once the browser gives up reconnecting, fetch a new one.
+    let source: EventSource | null = null;
+    let closed = false;
+    let retry: ReturnType<typeof setTimeout> | undefined;
+    const reopen = () => {
+      if (!closed) {
+        retry = setTimeout(open, 5000);
+      }
+    };
+    const open = async () => {
+      try {
+        const token = await request<{ accessToken: string }>(`/api/alerts/auth/stream-token`, { method: "POST" });
+        if (closed) return;
+        source = new EventSource(`/api/alerts/stream?access_token=${encodeURIComponent(token.accessToken)}`);
+        source.addEventListener("alert", (event) => {
+          try {
+            onAlert(JSON.parse((event as MessageEvent).data));
+          } catch {
+            // ignore
+          }
+        });
+        source.onerror = () => {
+          if (source?.readyState === EventSource.CLOSED) {
+            reopen();
+          }
+        };
+      } catch {
+        reopen();
+      }
+    };
+    open();
+    return () => {
+      closed = true;
+      clearTimeout(retry);
+      source?.close();
+    };
   }
 };
@@ -1,34 +1,170 @@
 package com.optimizer.metrics.controller;
 
+import com.optimizer.metrics.events.HttpMetricEventPublisher;
+import com.optimizer.metrics.ingest.IngestBufferFullException;
 import com.optimizer.metrics.model.Metric;
+import com.optimizer.metrics.model.ResourceInfo;
+import com.optimizer.metrics.retention.RetentionService;
 import com.optimizer.metrics.service.MetricService;
 import com.optimizer.metrics.dto.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("/metrics")
 public class MetricController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private MetricService metricService;
+    @Autowired
+    private RetentionService retentionService;
+    @Autowired
+    private HttpMetricEventPublisher metricEventPublisher;
 
     @PostMapping("/collect")
     public ResponseEntity<ApiResponse> collectMetric(@RequestBody Metric metric) {
         return ResponseEntity.ok(ApiResponse.success(metricService.collectMetric(metric)));
     }
 
+    @PostMapping(value = "/collect/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> collectBatch(@RequestBody List<Metric> metrics) {
+        return batchResponse(metricService.collectMetrics(metrics));
+    }
+
+    @PostMapping(value = "/collect/batch", consumes = "application/x-ndjson")
+    public ResponseEntity<ApiResponse> collectBatchNdjson(HttpServletRequest request) throws IOException {
+        return batchResponse(metricService.collectNdjson(request.getInputStream()));
+    }
+
+    @GetMapping("/ingest/stats")
+    public ResponseEntity<ApiResponse> ingestStats() {
+        return ResponseEntity.ok(ApiResponse.success(metricService.getIngestStats()));
+    }
+
+    @GetMapping("/events/stats")
+    public ResponseEntity<ApiResponse> eventStats() {
+        return ResponseEntity.ok(ApiResponse.success(metricEventPublisher.getStats()));
+    }
+
+    @GetMapping("/retention/report")
+    public ResponseEntity<ApiResponse> retentionReport() {
+        return ResponseEntity.ok(ApiResponse.success(retentionService.getLastReport()));
+    }
+
+    @PostMapping("/retention/run")
+    public ResponseEntity<ApiResponse> runRetention() {
+        return ResponseEntity.ok(ApiResponse.success(retentionService.run()));
+    }
+
     @GetMapping("/{resourceId}")
-    public ResponseEntity<ApiResponse> getMetrics(@PathVariable String resourceId) {
-        List<Metric> list = metricService.getMetricsByResourceId(resourceId);
-        return ResponseEntity.ok(ApiResponse.success(list));
+    public ResponseEntity<ApiResponse> getMetrics(@PathVariable String resourceId,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) String cursor) {
+        MetricService.MetricPage page = metricService.getMetricsByResourceId(resourceId, from, to, limit, cursor);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(ApiResponse.success(page.getItems()));
+    }
+
+    @GetMapping("/{resourceId}/stream")
+    public ResponseEntity<StreamingResponseBody> streamMetrics(@PathVariable String resourceId,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                               @RequestParam(defaultValue = "ndjson") String format) {
+        MediaType contentType = "csv".equalsIgnoreCase(format)
+                ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson");
+        StreamingResponseBody body = out -> metricService.exportMetrics(resourceId, from, to, format, out);
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
+
+    @GetMapping("/{resourceId}/rollup")
+    public ResponseEntity<ApiResponse> rollup(@PathVariable String resourceId,
+                                              @RequestParam(defaultValue = "5m") String step,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                              @RequestParam(defaultValue = "false") boolean percentiles) {
+        return ResponseEntity.ok(ApiResponse.success(metricService.getRollup(resourceId, parseStep(step), from, to, percentiles)));
     }
 
     @GetMapping("/resources")
-    public ResponseEntity<ApiResponse> getResources() {
-        return ResponseEntity.ok(ApiResponse.success(metricService.getDistinctResourceIds()));
+    public ResponseEntity<ApiResponse> getResources(WebRequest request) {
+        List<String> ids = metricService.getResourceIds();
+        if (request.checkNotModified(etag(ids))) {
+            return null;
+        }
+        return ResponseEntity.ok(ApiResponse.success(ids));
+    }
+
+    @GetMapping("/resources/details")
+    public ResponseEntity<ApiResponse> getResourceDetails(WebRequest request) {
+        List<ResourceInfo> resources = metricService.getResources();
+        if (request.checkNotModified(etag(resources))) {
+            return null;
+        }
+        return ResponseEntity.ok(ApiResponse.success(resources));
+    }
+
+    @ExceptionHandler(IngestBufferFullException.class)
+    public ResponseEntity<ApiResponse> bufferFull(IngestBufferFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error(e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+    }
+
+    private Duration parseStep(String step) {
+        try {
+            if (step.startsWith("P") || step.startsWith("p")) {
+                return Duration.parse(step);
+            }
+            long amount = Long.parseLong(step.substring(0, step.length() - 1));
+            switch (Character.toLowerCase(step.charAt(step.length() - 1))) {
+                case 's': return Duration.ofSeconds(amount);
+                case 'm': return Duration.ofMinutes(amount);
+                case 'h': return Duration.ofHours(amount);
+                case 'd': return Duration.ofDays(amount);
+                default: throw new IllegalArgumentException("Invalid step: " + step);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid step: " + step);
+        }
+    }
+
+    private ResponseEntity<ApiResponse> batchResponse(MetricService.BatchResult result) {
+        if (result.isThrottled() && result.getAccepted() == 0) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(result));
+        }
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    /** The registry is served from memory, so hashing the list is cheaper than sending it. */
+    private static String etag(List<?> body) {
+        return "\"" + body.size() + "-" + Integer.toHexString(body.hashCode()) + "\"";
     }
 }
@@ -0,0 +1,174 @@
+package com.optimizer.metrics.events;
+
+import com.optimizer.metrics.model.Metric;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in publisher that posts written samples to the optimization engine's
+ * {@code /optimize/events} endpoint. Samples are queued in a bounded buffer and
+ * sent by a single background thread in batches of up to {@code batch-size},
+ * flushed every {@code flush-interval-ms}. A failed post is retried
+ * {@code max-attempts} times with backoff and then dropped. Events only speed
+ * up detection; the engine's scheduled analysis ({@code analysis.enabled})
+ * reads samples from MongoDB and is what catches up on dropped ones, so
+ * enable it wherever events are enabled.
+ */
+@Slf4j
+@Component
+public class HttpMetricEventPublisher implements MetricEventPublisher {
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Value("${metrics.events.enabled:false}")
+    private boolean enabled;
+    @Value("${metrics.events.url:http://optimization-engine:8082/optimize/events}")
+    private String url;
+    @Value("${metrics.events.capacity:10000}")
+    private int capacity;
+    @Value("${metrics.events.batch-size:500}")
+    private int batchSize;
+    @Value("${metrics.events.flush-interval-ms:500}")
+    private long flushIntervalMs;
+    @Value("${metrics.events.max-attempts:3}")
+    private int maxAttempts;
+    @Value("${metrics.events.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    private RestTemplate restTemplate;
+    private BlockingQueue<Metric> queue;
+    private Thread sender;
+    private volatile boolean running;
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong posts = new AtomicLong();
+
+    @Data
+    public static class Stats {
+        private boolean enabled;
+        private int depth;
+        private int capacity;
+        private long queued;
+        private long dropped;
+        private long sent;
+        private long failed;
+        private long posts;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofSeconds(2))
+                .setReadTimeout(Duration.ofSeconds(5))
+                .build();
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        sender = new Thread(this::run, "metric-event-publisher");
+        sender.setDaemon(true);
+        sender.start();
+        log.info("Metric events enabled (url={}, batchSize={}, flushIntervalMs={})", url, batchSize, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (sender == null) {
+            return;
+        }
+        running = false;
+        sender.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Override
+    public void publish(List<Metric> metrics) {
+        if (!enabled) {
+            return;
+        }
+        for (Metric metric : metrics) {
+            if (queue.offer(metric)) {
+                queued.incrementAndGet();
+            } else {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    public Stats getStats() {
+        Stats s = new Stats();
+        s.setEnabled(enabled);
+        s.setDepth(queue != null ? queue.size() : 0);
+        s.setCapacity(capacity);
+        s.setQueued(queued.get());
+        s.setDropped(dropped.get());
+        s.setSent(sent.get());
+        s.setFailed(failed.get());
+        s.setPosts(posts.get());
+        return s;
+    }
+
+    private void run() {
+        List<Metric> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Metric first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                send(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<Metric> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                restTemplate.postForObject(url, batch, Void.class);
+                posts.incrementAndGet();
+                sent.addAndGet(batch.size());
+                return;
+            } catch (RestClientException e) {
+                if (attempt >= maxAttempts || !running) {
+                    log.warn("Dropping {} metric events after {} attempts: {}", batch.size(), attempt, e.getMessage());
+                    failed.addAndGet(batch.size());
+                    return;
+                }
+                try {
+                    Thread.sleep(retryBackoffMs * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+        }
+    }
+}
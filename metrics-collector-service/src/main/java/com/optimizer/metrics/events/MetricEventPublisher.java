@@ -0,0 +1,22 @@
+package com.optimizer.metrics.events;
+
+import com.optimizer.metrics.ingest.MetricWriteListener;
+import com.optimizer.metrics.model.Metric;
+
+import java.util.List;
+
+/**
+ * Forwards written samples to downstream consumers as events. Publishing must
+ * not block ingestion; implementations buffer and drop when they fall behind.
+ * {@link HttpMetricEventPublisher} posts to the optimization engine; a
+ * broker-backed implementation (e.g. Kafka) can replace it.
+ */
+public interface MetricEventPublisher extends MetricWriteListener {
+
+    void publish(List<Metric> metrics);
+
+    @Override
+    default void onWritten(List<Metric> metrics) {
+        publish(metrics);
+    }
+}
@@ -0,0 +1,9 @@
+package com.optimizer.metrics.ingest;
+
+public class IngestBufferFullException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public IngestBufferFullException() {
+        super("Ingest buffer full, retry later");
+    }
+}
@@ -0,0 +1,124 @@
+package com.optimizer.metrics.ingest;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.optimizer.metrics.model.Metric;
+import com.optimizer.metrics.repository.MetricRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes metrics with unordered bulk inserts so one failing document does not
+ * abort the rest of the batch. Returns the failures keyed by position in the
+ * input list. Every successfully written sample is handed to the registered
+ * {@link MetricWriteListener}s.
+ *
+ * <p>Metrics get their {@code _id} before the first attempt, and an
+ * {@link Progress} records which chunks completed, so a caller that retries
+ * after an exception only resends the remaining chunks. A duplicate-key error
+ * on a resent chunk means the earlier attempt did write that sample.
+ */
+@Slf4j
+@Component
+public class MetricBulkWriter {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private MetricRepository metricRepository;
+    @Autowired(required = false)
+    private List<MetricWriteListener> listeners = List.of();
+
+    @Value("${metrics.ingest.bulk-chunk-size:1000}")
+    private int chunkSize;
+
+    public Metric save(Metric metric) {
+        Metric saved = metricRepository.save(metric);
+        notifyListeners(List.of(saved));
+        return saved;
+    }
+
+    /** Chunk state of one list across retries of {@link #insert(List, Progress)}. */
+    public static class Progress {
+        private final BitSet attempted = new BitSet();
+        private final BitSet completed = new BitSet();
+        private final Map<Integer, String> failures = new LinkedHashMap<>();
+
+        public Map<Integer, String> getFailures() {
+            return failures;
+        }
+    }
+
+    public Map<Integer, String> insert(List<Metric> metrics) {
+        return insert(metrics, new Progress());
+    }
+
+    /**
+     * Inserts the chunks that {@code progress} has not seen complete. If this
+     * throws, call it again with the same list and progress to continue.
+     */
+    public Map<Integer, String> insert(List<Metric> metrics, Progress progress) {
+        for (Metric metric : metrics) {
+            if (metric.getId() == null) {
+                metric.setId(new ObjectId().toHexString());
+            }
+        }
+        for (int chunk = 0, from = 0; from < metrics.size(); chunk++, from += chunkSize) {
+            if (progress.completed.get(chunk)) {
+                continue;
+            }
+            boolean resend = progress.attempted.get(chunk);
+            progress.attempted.set(chunk);
+            int to = Math.min(from + chunkSize, metrics.size());
+            insertChunk(metrics.subList(from, to), from, resend, progress.failures);
+            progress.completed.set(chunk);
+        }
+        return progress.failures;
+    }
+
+    private void insertChunk(List<Metric> chunk, int offset, boolean resend, Map<Integer, String> failures) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Metric.class)
+                    .insert(new ArrayList<>(chunk))
+                    .execute();
+            notifyListeners(chunk);
+        } catch (BulkOperationException e) {
+            List<Metric> written = new ArrayList<>(chunk);
+            for (BulkWriteError error : e.getErrors()) {
+                if (resend && error.getCode() == DUPLICATE_KEY) {
+                    continue; // written by the attempt that threw, which never notified the listeners
+                }
+                failures.put(offset + error.getIndex(), error.getMessage());
+                written.set(error.getIndex(), null);
+            }
+            written.removeIf(m -> m == null);
+            notifyListeners(written);
+        }
+    }
+
+    private void notifyListeners(List<Metric> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        for (MetricWriteListener listener : listeners) {
+            try {
+                listener.onWritten(written);
+            } catch (RuntimeException e) {
+                log.warn("Metric write listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+}
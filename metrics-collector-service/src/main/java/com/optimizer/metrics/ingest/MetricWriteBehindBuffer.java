@@ -0,0 +1,226 @@
+package com.optimizer.metrics.ingest;
+
+import com.optimizer.metrics.model.Metric;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in write-behind mode for metric ingestion. Accepted samples are queued in
+ * a bounded buffer and written by a single background thread in batches that
+ * are flushed when they reach {@code batch-size} or {@code flush-interval-ms}
+ * elapses. When the buffer is full, offers fail immediately so callers can
+ * shed load instead of blocking on Mongo.
+ */
+@Slf4j
+@Component
+public class MetricWriteBehindBuffer {
+
+    @Autowired
+    private MetricBulkWriter metricBulkWriter;
+
+    @Value("${metrics.ingest.write-behind.enabled:false}")
+    private boolean enabled;
+    @Value("${metrics.ingest.write-behind.capacity:10000}")
+    private int capacity;
+    @Value("${metrics.ingest.write-behind.batch-size:1000}")
+    private int batchSize;
+    @Value("${metrics.ingest.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+    @Value("${metrics.ingest.write-behind.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    private BlockingQueue<Metric> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong totalFlushMillis = new AtomicLong();
+    private volatile long lastFlushMillis;
+    private volatile long maxFlushMillis;
+
+    @Data
+    public static class Stats {
+        private boolean enabled;
+        private int depth;
+        private int capacity;
+        private long accepted;
+        private long dropped;
+        private long written;
+        private long failed;
+        private long flushes;
+        private long lastFlushMillis;
+        private long maxFlushMillis;
+        private double avgFlushMillis;
+        private int rollupRetryBuckets;
+        private long rollupDroppedBuckets;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        writer = new Thread(this::run, "metric-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Metric write-behind enabled (capacity={}, batchSize={}, flushIntervalMs={})",
+                capacity, batchSize, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (!queue.isEmpty()) {
+            log.warn("Metric write-behind stopped with {} unflushed samples", queue.size());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean offer(Metric metric) {
+        if (queue.offer(metric)) {
+            accepted.incrementAndGet();
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Offers every metric and returns the positions that did not fit, keyed
+     * like {@link MetricBulkWriter#insert(List)} failures.
+     */
+    public Map<Integer, String> offerAll(List<Metric> metrics) {
+        Map<Integer, String> rejected = new LinkedHashMap<>();
+        for (int i = 0; i < metrics.size(); i++) {
+            if (!offer(metrics.get(i))) {
+                rejected.put(i, "Ingest buffer full");
+            }
+        }
+        return rejected;
+    }
+
+    public Stats getStats() {
+        Stats s = new Stats();
+        s.setEnabled(enabled);
+        s.setDepth(queue != null ? queue.size() : 0);
+        s.setCapacity(capacity);
+        s.setAccepted(accepted.get());
+        s.setDropped(dropped.get());
+        s.setWritten(written.get());
+        s.setFailed(failed.get());
+        long n = flushes.get();
+        s.setFlushes(n);
+        s.setLastFlushMillis(lastFlushMillis);
+        s.setMaxFlushMillis(maxFlushMillis);
+        s.setAvgFlushMillis(n > 0 ? (double) totalFlushMillis.get() / n : 0.0);
+        return s;
+    }
+
+    private void run() {
+        List<Metric> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                fill(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fill(List<Metric> batch) throws InterruptedException {
+        Metric first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            Metric next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Writes the batch, retrying until it succeeds or the buffer stops. Retries
+     * share one {@link MetricBulkWriter.Progress}, so chunks that were written
+     * before a failure are not inserted twice.
+     */
+    private void flush(List<Metric> batch) {
+        MetricBulkWriter.Progress progress = new MetricBulkWriter.Progress();
+        while (true) {
+            long started = System.currentTimeMillis();
+            try {
+                Map<Integer, String> failures = metricBulkWriter.insert(batch, progress);
+                if (!failures.isEmpty()) {
+                    log.warn("Write-behind flush rejected {} of {} samples", failures.size(), batch.size());
+                }
+                recordFlush(System.currentTimeMillis() - started, batch.size(), failures.size());
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.error("Dropping {} samples after write failure during shutdown", batch.size(), e);
+                    failed.addAndGet(batch.size());
+                    return;
+                }
+                log.warn("Write-behind flush failed, retrying in {} ms: {}", retryBackoffMs, e.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+        }
+    }
+
+    private void recordFlush(long millis, int size, int failures) {
+        flushes.incrementAndGet();
+        totalFlushMillis.addAndGet(millis);
+        lastFlushMillis = millis;
+        if (millis > maxFlushMillis) {
+            maxFlushMillis = millis;
+        }
+        written.addAndGet(size - failures);
+        failed.addAndGet(failures);
+    }
+}
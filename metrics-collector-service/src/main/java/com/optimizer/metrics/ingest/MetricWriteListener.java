@@ -0,0 +1,13 @@
+package com.optimizer.metrics.ingest;
+
+import com.optimizer.metrics.model.Metric;
+
+import java.util.List;
+
+/**
+ * Callback for components that derive state from ingested samples. Invoked
+ * after samples have been written to the metrics collection.
+ */
+public interface MetricWriteListener {
+    void onWritten(List<Metric> metrics);
+}
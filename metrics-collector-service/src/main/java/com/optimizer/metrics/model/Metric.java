@@ -2,15 +2,19 @@ package com.optimizer.metrics.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 @Data
 @Document(collection = "metrics")
+@CompoundIndex(name = "resource_timestamp_idx", def = "{'resourceId': 1, 'timestamp': 1, '_id': 1}")
 public class Metric {
     @Id
     private String id;
     private String resourceId;
+    @Indexed(name = "timestamp_idx")
     private LocalDateTime timestamp;
     private Double cpu;
     private Double memory;
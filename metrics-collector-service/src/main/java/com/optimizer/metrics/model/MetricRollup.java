@@ -0,0 +1,33 @@
+package com.optimizer.metrics.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Pre-aggregated statistics for one resource over one tier bucket. Stored in
+ * the per-tier collections named by {@link com.optimizer.metrics.rollup.RollupTier}.
+ */
+@Data
+public class MetricRollup {
+    @Id
+    private String id;
+    private String resourceId;
+    private LocalDateTime bucketStart;
+    private long count;
+    private long cpuCount;
+    private double cpuSum;
+    private Double cpuMin;
+    private Double cpuMax;
+    private long memoryCount;
+    private double memorySum;
+    private Double memoryMin;
+    private Double memoryMax;
+    private long diskCount;
+    private double diskSum;
+    private Double diskMin;
+    private Double diskMax;
+    /** Ids of the most recent flushes applied to this bucket, used to skip retried increments. */
+    private List<String> flushIds;
+}
@@ -0,0 +1,16 @@
+package com.optimizer.metrics.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+@Data
+@Document(collection = "resources")
+public class ResourceInfo {
+    @Id
+    private String resourceId;
+    private LocalDateTime firstSeen;
+    private LocalDateTime lastSeen;
+    private long sampleCount;
+}
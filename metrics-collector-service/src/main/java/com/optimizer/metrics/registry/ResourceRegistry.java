@@ -0,0 +1,217 @@
+package com.optimizer.metrics.registry;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.optimizer.metrics.ingest.MetricWriteListener;
+import com.optimizer.metrics.model.Metric;
+import com.optimizer.metrics.model.ResourceInfo;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Registry of known resources kept in the {@code resources} collection. Ingest
+ * updates are accumulated in memory and flushed periodically as upserts, and
+ * reads are served from an in-process snapshot refreshed after
+ * {@code metrics.resources.cache-ttl}, so listing resources never scans the
+ * metrics collection.
+ */
+@Slf4j
+@Service
+public class ResourceRegistry implements MetricWriteListener {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${metrics.resources.cache-ttl:30s}")
+    private Duration cacheTtl;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Map<String, Sighting> pending = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot;
+    private volatile boolean seeded;
+
+    private record Snapshot(List<ResourceInfo> resources, long loadedAt) {
+    }
+
+    private static final class Sighting {
+        long count;
+        LocalDateTime first;
+        LocalDateTime last;
+
+        synchronized void add(LocalDateTime timestamp) {
+            count++;
+            if (first == null || timestamp.isBefore(first)) {
+                first = timestamp;
+            }
+            if (last == null || timestamp.isAfter(last)) {
+                last = timestamp;
+            }
+        }
+
+        synchronized Sighting merge(Sighting other) {
+            count += other.count;
+            if (first == null || other.first.isBefore(first)) {
+                first = other.first;
+            }
+            if (last == null || other.last.isAfter(last)) {
+                last = other.last;
+            }
+            return this;
+        }
+    }
+
+    @Override
+    public void onWritten(List<Metric> metrics) {
+        lock.readLock().lock();
+        try {
+            Map<String, Sighting> target = pending;
+            for (Metric metric : metrics) {
+                target.computeIfAbsent(metric.getResourceId(), k -> new Sighting()).add(metric.getTimestamp());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> getResourceIds() {
+        List<ResourceInfo> resources = getResources();
+        List<String> ids = new ArrayList<>(resources.size());
+        for (ResourceInfo info : resources) {
+            ids.add(info.getResourceId());
+        }
+        return ids;
+    }
+
+    public List<ResourceInfo> getResources() {
+        Snapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() - current.loadedAt() > cacheTtl.toMillis()) {
+            current = reload();
+        }
+        return current.resources();
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.resources.flush-interval-ms:5000}")
+    public void flush() {
+        if (!seeded) {
+            try {
+                seed();
+            } catch (RuntimeException e) {
+                log.warn("Resource registry seeding failed, retrying on next flush: {}", e.getMessage());
+                return;
+            }
+        }
+        Map<String, Sighting> batch;
+        lock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<String> ids = new ArrayList<>(batch.keySet());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ResourceInfo.class);
+        for (String id : ids) {
+            Sighting sighting = batch.get(id);
+            bulk.upsert(new Query(Criteria.where("_id").is(id)), new Update()
+                    .inc("sampleCount", sighting.count)
+                    .min("firstSeen", sighting.first)
+                    .max("lastSeen", sighting.last));
+        }
+        boolean newResource = false;
+        try {
+            newResource = bulk.execute().getUpserts().size() > 0;
+        } catch (BulkOperationException e) {
+            Map<String, Sighting> failed = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                String id = ids.get(error.getIndex());
+                failed.put(id, batch.get(id));
+            }
+            log.warn("Resource registry flush rejected {} resources, retrying on next flush", failed.size());
+            requeue(failed);
+            newResource = true;
+        } catch (RuntimeException e) {
+            log.warn("Resource registry flush failed, retrying {} resources on next flush: {}", batch.size(), e.getMessage());
+            requeue(batch);
+            return;
+        }
+        if (newResource) {
+            snapshot = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private synchronized Snapshot reload() {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.loadedAt() <= cacheTtl.toMillis()) {
+            return current;
+        }
+        List<ResourceInfo> resources = mongoTemplate.find(
+                new Query().with(Sort.by(Sort.Direction.ASC, "_id")), ResourceInfo.class);
+        current = new Snapshot(List.copyOf(resources), System.currentTimeMillis());
+        snapshot = current;
+        return current;
+    }
+
+    /**
+     * One-off seeding of the registry from samples written before it existed.
+     * Runs before the first flush so it never races with registry upserts.
+     */
+    private void seed() {
+        if (mongoTemplate.exists(new Query(), ResourceInfo.class) || !mongoTemplate.exists(new Query(), Metric.class)) {
+            seeded = true;
+            return;
+        }
+        log.info("Seeding resource registry from the metrics collection");
+        List<Document> pipeline = List.of(
+                new Document("$group", new Document("_id", "$resourceId")
+                        .append("firstSeen", new Document("$min", "$timestamp"))
+                        .append("lastSeen", new Document("$max", "$timestamp"))
+                        .append("sampleCount", new Document("$sum", 1))),
+                new Document("$merge", new Document("into", mongoTemplate.getCollectionName(ResourceInfo.class))
+                        .append("whenMatched", "keepExisting")));
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Metric.class))
+                .aggregate(pipeline)
+                .allowDiskUse(true)
+                .toCollection();
+        seeded = true;
+        snapshot = null;
+    }
+
+    private void requeue(Map<String, Sighting> batch) {
+        lock.readLock().lock();
+        try {
+            batch.forEach((id, sighting) -> pending.merge(id, sighting, Sighting::merge));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.optimizer.metrics.retention;
+
+import com.optimizer.metrics.rollup.RollupTier;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deletes samples and rollups that are older than the retention configured
+ * for their resolution tier. A zero retention keeps a tier forever. Each run
+ * records the documents deleted and the change in logical data size per
+ * collection; on-disk space is reused by the storage engine rather than
+ * returned to the OS.
+ */
+@Slf4j
+@Service
+public class RetentionService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${metrics.retention.enabled:true}")
+    private boolean enabled;
+    @Value("${metrics.retention.raw:7d}")
+    private Duration raw;
+    @Value("${metrics.retention.minute:2d}")
+    private Duration minute;
+    @Value("${metrics.retention.hour:90d}")
+    private Duration hour;
+    @Value("${metrics.retention.day:0}")
+    private Duration day;
+
+    private volatile RetentionReport lastReport;
+
+    @Data
+    public static class RetentionReport {
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private long documentsDeleted;
+        private long bytesReclaimed;
+        private List<CollectionResult> collections = new ArrayList<>();
+    }
+
+    @Data
+    public static class CollectionResult {
+        private String collection;
+        private Duration retention;
+        private LocalDateTime cutoff;
+        private long documentsDeleted;
+        private long bytesBefore;
+        private long bytesAfter;
+        private long bytesReclaimed;
+    }
+
+    @Scheduled(cron = "${metrics.retention.cron:0 15 * * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    public synchronized RetentionReport run() {
+        RetentionReport report = new RetentionReport();
+        report.setStartedAt(LocalDateTime.now());
+        enforce(report, "metrics", "timestamp", raw);
+        enforce(report, RollupTier.MINUTE.getCollection(), "bucketStart", minute);
+        enforce(report, RollupTier.HOUR.getCollection(), "bucketStart", hour);
+        enforce(report, RollupTier.DAY.getCollection(), "bucketStart", day);
+        report.setFinishedAt(LocalDateTime.now());
+        lastReport = report;
+        log.info("Retention run deleted {} documents, reclaimed {} bytes", report.getDocumentsDeleted(), report.getBytesReclaimed());
+        return report;
+    }
+
+    public RetentionReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Oldest bucket start a tier still holds in full, or null if the tier is
+     * kept forever.
+     */
+    public LocalDateTime cutoff(RollupTier tier) {
+        Duration retention = switch (tier) {
+            case MINUTE -> minute;
+            case HOUR -> hour;
+            case DAY -> day;
+        };
+        if (!enabled || retention == null || retention.isZero() || retention.isNegative()) {
+            return null;
+        }
+        return LocalDateTime.now().minus(retention);
+    }
+
+    private void enforce(RetentionReport report, String collection, String field, Duration retention) {
+        if (retention == null || retention.isZero() || retention.isNegative()) {
+            return;
+        }
+        CollectionResult result = new CollectionResult();
+        result.setCollection(collection);
+        result.setRetention(retention);
+        result.setCutoff(LocalDateTime.now().minus(retention));
+        result.setBytesBefore(dataSize(collection));
+        long deleted = mongoTemplate.remove(new Query(Criteria.where(field).lt(result.getCutoff())), collection)
+                .getDeletedCount();
+        result.setDocumentsDeleted(deleted);
+        result.setBytesAfter(dataSize(collection));
+        result.setBytesReclaimed(Math.max(0, result.getBytesBefore() - result.getBytesAfter()));
+        report.getCollections().add(result);
+        report.setDocumentsDeleted(report.getDocumentsDeleted() + deleted);
+        report.setBytesReclaimed(report.getBytesReclaimed() + result.getBytesReclaimed());
+    }
+
+    private long dataSize(String collection) {
+        if (!mongoTemplate.collectionExists(collection)) {
+            return 0;
+        }
+        try {
+            Document stats = mongoTemplate.executeCommand(new Document("collStats", collection));
+            Object size = stats.get("size");
+            return size instanceof Number number ? number.longValue() : 0;
+        } catch (RuntimeException e) {
+            log.debug("collStats failed for {}: {}", collection, e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.optimizer.metrics.rollup;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.optimizer.metrics.ingest.MetricWriteListener;
+import com.optimizer.metrics.model.Metric;
+import com.optimizer.metrics.model.MetricRollup;
+import com.optimizer.metrics.retention.RetentionService;
+import com.optimizer.metrics.service.MetricService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Maintains 1-minute, 1-hour and 1-day rollups per resource as samples are
+ * ingested. Samples are folded into an in-memory accumulator and flushed
+ * periodically as {@code $inc}/{@code $min}/{@code $max} upserts, so the
+ * ingest path does no extra round trips and each bucket is written at most
+ * once per flush.
+ * <p>
+ * {@code $inc} is not idempotent, so every write carries the id of the flush
+ * that produced it and the bucket remembers its last
+ * {@code metrics.rollup.applied-flush-history} ids. A retry after a lost
+ * acknowledgement matches nothing, its upsert hits the duplicate key, and
+ * the increments are not applied twice. Because two instances racing to
+ * create the same bucket also hit the duplicate key, the bucket is re-read
+ * and the write only dropped if its flush id is recorded there. Failed
+ * writes are retried with their original id and never merged into newer
+ * increments. At most {@code metrics.rollup.max-retry-buckets} writes wait
+ * for a retry; while the backlog is at that limit new increments stay in
+ * the accumulator, and writes beyond it are dropped and counted.
+ */
+@Slf4j
+@Service
+public class MetricRollupService implements MetricWriteListener {
+
+    private static final RollupTier[] COARSEST_FIRST = {RollupTier.DAY, RollupTier.HOUR, RollupTier.MINUTE};
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private RetentionService retentionService;
+
+    private static final int DUPLICATE_KEY = 11000;
+    private static final String STATE_COLLECTION = "metric_rollup_state";
+
+    @Value("${metrics.rollup.applied-flush-history:32}")
+    private int appliedFlushHistory;
+    @Value("${metrics.rollup.max-retry-buckets:100000}")
+    private int maxRetryBuckets;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final String flushIdPrefix = Long.toString(System.currentTimeMillis(), 36) + "-";
+    private final AtomicLong flushSequence = new AtomicLong();
+    private final List<BucketWrite> retries = new ArrayList<>();
+    private final AtomicLong droppedBuckets = new AtomicLong();
+    private volatile int retryBuckets;
+    private final Map<RollupTier, LocalDateTime> coverage = new ConcurrentHashMap<>();
+    private volatile Map<BucketKey, Accumulator> pending = new ConcurrentHashMap<>();
+    private volatile boolean indexesEnsured;
+
+    private record BucketKey(RollupTier tier, String resourceId, long bucketMillis) {
+    }
+
+    /** One bucket's increments tagged with the flush that first tried to write them. */
+    private record BucketWrite(BucketKey key, Accumulator acc, String flushId) {
+    }
+
+    private void ensureIndexes() {
+        for (RollupTier tier : RollupTier.values()) {
+            mongoTemplate.indexOps(tier.getCollection()).ensureIndex(new Index()
+                    .on("resourceId", Sort.Direction.ASC)
+                    .on("bucketStart", Sort.Direction.ASC)
+                    .named("resource_bucket_idx"));
+            mongoTemplate.indexOps(tier.getCollection()).ensureIndex(new Index()
+                    .on("bucketStart", Sort.Direction.ASC)
+                    .named("bucket_start_idx"));
+        }
+        indexesEnsured = true;
+    }
+
+    @Override
+    public void onWritten(List<Metric> metrics) {
+        lock.readLock().lock();
+        try {
+            Map<BucketKey, Accumulator> target = pending;
+            for (Metric metric : metrics) {
+                long millis = toMillis(metric.getTimestamp());
+                for (RollupTier tier : RollupTier.values()) {
+                    long bucket = millis - Math.floorMod(millis, tier.getWidthMillis());
+                    target.computeIfAbsent(new BucketKey(tier, metric.getResourceId(), bucket), k -> new Accumulator())
+                            .add(metric);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.rollup.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<BucketKey, Accumulator> snapshot = Map.of();
+        // With a full retry backlog, new increments keep merging in pending instead.
+        if (retries.size() < maxRetryBuckets) {
+            lock.writeLock().lock();
+            try {
+                snapshot = pending;
+                if (!snapshot.isEmpty()) {
+                    pending = new ConcurrentHashMap<>();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        if (snapshot.isEmpty() && retries.isEmpty()) {
+            return;
+        }
+
+        List<BucketWrite> writes = new ArrayList<>(retries);
+        retries.clear();
+        String flushId = flushIdPrefix + flushSequence.incrementAndGet();
+        snapshot.forEach((key, acc) -> writes.add(new BucketWrite(key, acc, flushId)));
+
+        try {
+            coverageStart(RollupTier.MINUTE);
+            if (!indexesEnsured) {
+                ensureIndexes();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Rollup initialisation failed, retrying {} buckets on next flush: {}", writes.size(), e.getMessage());
+            retry(writes);
+            return;
+        }
+
+        Map<RollupTier, List<BucketWrite>> byTier = new EnumMap<>(RollupTier.class);
+        for (BucketWrite write : writes) {
+            byTier.computeIfAbsent(write.key().tier(), t -> new ArrayList<>()).add(write);
+        }
+        byTier.forEach((tier, tierWrites) -> {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MetricRollup.class, tier.getCollection());
+            for (BucketWrite write : tierWrites) {
+                BucketKey key = write.key();
+                bulk.upsert(new Query(Criteria.where("_id").is(rollupId(key.resourceId(), key.bucketMillis()))
+                                .and("flushIds").ne(write.flushId())),
+                        write.acc().toUpdate(key, write.flushId(), appliedFlushHistory));
+            }
+            try {
+                bulk.execute();
+            } catch (BulkOperationException e) {
+                List<BucketWrite> failed = new ArrayList<>();
+                List<BucketWrite> duplicates = new ArrayList<>();
+                for (BulkWriteError error : e.getErrors()) {
+                    (error.getCode() == DUPLICATE_KEY ? duplicates : failed).add(tierWrites.get(error.getIndex()));
+                }
+                failed.addAll(notApplied(tier, duplicates));
+                if (!failed.isEmpty()) {
+                    log.warn("Rollup flush to {} rejected {} buckets, retrying on next flush", tier.getCollection(), failed.size());
+                    retry(failed);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Rollup flush to {} failed, retrying {} buckets on next flush: {}",
+                        tier.getCollection(), tierWrites.size(), e.getMessage());
+                retry(tierWrites);
+            }
+        });
+        retryBuckets = retries.size();
+    }
+
+    /**
+     * Of the writes that hit a duplicate key, returns those whose flush id the
+     * bucket does not record. Those lost an insert race with another instance
+     * rather than having been applied already, so they must be written again.
+     */
+    private List<BucketWrite> notApplied(RollupTier tier, List<BucketWrite> duplicates) {
+        if (duplicates.isEmpty()) {
+            return duplicates;
+        }
+        List<String> ids = new ArrayList<>(duplicates.size());
+        for (BucketWrite write : duplicates) {
+            ids.add(rollupId(write.key().resourceId(), write.key().bucketMillis()));
+        }
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("flushIds");
+        Map<String, List<String>> applied = new HashMap<>();
+        try {
+            for (Document doc : mongoTemplate.find(query, Document.class, tier.getCollection())) {
+                applied.put(doc.getString("_id"), doc.getList("flushIds", String.class, List.of()));
+            }
+        } catch (RuntimeException e) {
+            // Retrying is safe: the flush id filter still stops a second application.
+            return duplicates;
+        }
+        List<BucketWrite> missing = new ArrayList<>();
+        for (int i = 0; i < duplicates.size(); i++) {
+            if (!applied.getOrDefault(ids.get(i), List.of()).contains(duplicates.get(i).flushId())) {
+                missing.add(duplicates.get(i));
+            }
+        }
+        return missing;
+    }
+
+    private void retry(List<BucketWrite> writes) {
+        int room = Math.max(0, maxRetryBuckets - retries.size());
+        if (writes.size() > room) {
+            droppedBuckets.addAndGet(writes.size() - room);
+            log.error("Rollup retry backlog full, dropping {} bucket writes", writes.size() - room);
+        }
+        retries.addAll(writes.subList(0, Math.min(room, writes.size())));
+        retryBuckets = retries.size();
+    }
+
+    /** Bucket writes waiting for a retry. */
+    public int getRetryBuckets() {
+        return retryBuckets;
+    }
+
+    /** Bucket writes dropped because the retry backlog was full. */
+    public long getDroppedBuckets() {
+        return droppedBuckets.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /** The coarsest tier whose width divides {@code step}, or null if none does. */
+    public RollupTier tierFor(Duration step) {
+        long stepMillis = step.toMillis();
+        for (RollupTier candidate : COARSEST_FIRST) {
+            if (stepMillis % candidate.getWidthMillis() == 0) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Start of the range the tier can answer completely, rounded up to a
+     * {@code step} boundary. Buckets before it were either never rolled up,
+     * because they predate the tier, or have passed the tier's retention
+     * (1-minute rollups are kept for less time than raw samples). The caller
+     * reads them from raw samples.
+     */
+    public LocalDateTime coveredFrom(RollupTier tier, Duration step) {
+        LocalDateTime start = coverageStart(tier);
+        LocalDateTime cutoff = retentionService.cutoff(tier);
+        if (cutoff != null && cutoff.isAfter(start)) {
+            start = cutoff;
+        }
+        long from = toMillis(start);
+        long stepMillis = step.toMillis();
+        long remainder = Math.floorMod(from, stepMillis);
+        return toLocalDateTime(remainder == 0 ? from : from - remainder + stepMillis);
+    }
+
+    /**
+     * Answers a rollup query from {@code tier}, re-bucketing tier documents
+     * into {@code step} buckets. Percentiles cannot be derived from tier
+     * documents and are left empty.
+     */
+    public List<MetricService.RollupBucket> query(String resourceId, RollupTier tier, Duration step,
+                                                  LocalDateTime start, LocalDateTime end) {
+        long stepMillis = step.toMillis();
+        long startMillis = toMillis(start);
+        LocalDateTime alignedStart = toLocalDateTime(startMillis - Math.floorMod(startMillis, tier.getWidthMillis()));
+        Query query = new Query(Criteria.where("resourceId").is(resourceId).and("bucketStart").gte(alignedStart).lt(end))
+                .with(Sort.by(Sort.Direction.ASC, "bucketStart"));
+        List<MetricRollup> rows = mongoTemplate.find(query, MetricRollup.class, tier.getCollection());
+
+        List<MetricService.RollupBucket> buckets = new ArrayList<>();
+        Accumulator current = null;
+        long currentBucket = Long.MIN_VALUE;
+        for (MetricRollup row : rows) {
+            long millis = toMillis(row.getBucketStart());
+            long bucket = millis - Math.floorMod(millis, stepMillis);
+            if (bucket != currentBucket) {
+                if (current != null) {
+                    buckets.add(current.toBucket(currentBucket));
+                }
+                current = new Accumulator();
+                currentBucket = bucket;
+            }
+            current.add(row);
+        }
+        if (current != null) {
+            buckets.add(current.toBucket(currentBucket));
+        }
+        return buckets;
+    }
+
+    /**
+     * When the tier started receiving every sample. The first instance to
+     * start records the next tier boundary in {@code metric_rollup_state}.
+     * Later starts keep the earliest value.
+     */
+    private LocalDateTime coverageStart(RollupTier tier) {
+        LocalDateTime cached = coverage.get(tier);
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (coverage) {
+            if (coverage.isEmpty()) {
+                long now = System.currentTimeMillis();
+                for (RollupTier t : RollupTier.values()) {
+                    long next = now - Math.floorMod(now, t.getWidthMillis()) + t.getWidthMillis();
+                    Query id = new Query(Criteria.where("_id").is(t.name()));
+                    mongoTemplate.upsert(id, new Update().setOnInsert("coveredFrom", toLocalDateTime(next)), STATE_COLLECTION);
+                    Document state = mongoTemplate.findOne(id, Document.class, STATE_COLLECTION);
+                    coverage.put(t, toLocalDateTime(state.getDate("coveredFrom").getTime()));
+                }
+            }
+            return coverage.get(tier);
+        }
+    }
+
+    static String rollupId(String resourceId, long bucketMillis) {
+        return resourceId + "|" + bucketMillis;
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static final class FieldStats {
+        long count;
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        void add(Double value) {
+            if (value != null) {
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+
+        void add(long n, double s, Double mn, Double mx) {
+            if (n > 0) {
+                count += n;
+                sum += s;
+                min = Math.min(min, mn);
+                max = Math.max(max, mx);
+            }
+        }
+
+        void apply(Update update, String field) {
+            if (count > 0) {
+                update.inc(field + "Count", count).inc(field + "Sum", sum).min(field + "Min", min).max(field + "Max", max);
+            }
+        }
+
+        Double avg() {
+            return count > 0 ? sum / count : null;
+        }
+
+        Double minOrNull() {
+            return count > 0 ? min : null;
+        }
+
+        Double maxOrNull() {
+            return count > 0 ? max : null;
+        }
+    }
+
+    private static final class Accumulator {
+        long count;
+        final FieldStats cpu = new FieldStats();
+        final FieldStats memory = new FieldStats();
+        final FieldStats disk = new FieldStats();
+
+        synchronized void add(Metric metric) {
+            count++;
+            cpu.add(metric.getCpu());
+            memory.add(metric.getMemory());
+            disk.add(metric.getDisk());
+        }
+
+        void add(MetricRollup row) {
+            count += row.getCount();
+            cpu.add(row.getCpuCount(), row.getCpuSum(), row.getCpuMin(), row.getCpuMax());
+            memory.add(row.getMemoryCount(), row.getMemorySum(), row.getMemoryMin(), row.getMemoryMax());
+            disk.add(row.getDiskCount(), row.getDiskSum(), row.getDiskMin(), row.getDiskMax());
+        }
+
+        Update toUpdate(BucketKey key, String flushId, int history) {
+            Update update = new Update()
+                    .setOnInsert("resourceId", key.resourceId())
+                    .setOnInsert("bucketStart", toLocalDateTime(key.bucketMillis()))
+                    .inc("count", count);
+            update.push("flushIds").slice(-history).each(flushId);
+            cpu.apply(update, "cpu");
+            memory.apply(update, "memory");
+            disk.apply(update, "disk");
+            return update;
+        }
+
+        MetricService.RollupBucket toBucket(long bucketMillis) {
+            MetricService.RollupBucket bucket = new MetricService.RollupBucket();
+            bucket.setBucketStart(toLocalDateTime(bucketMillis));
+            bucket.setCount(count);
+            bucket.setAvgCpu(cpu.avg());
+            bucket.setMinCpu(cpu.minOrNull());
+            bucket.setMaxCpu(cpu.maxOrNull());
+            bucket.setAvgMemory(memory.avg());
+            bucket.setMinMemory(memory.minOrNull());
+            bucket.setMaxMemory(memory.maxOrNull());
+            bucket.setAvgDisk(disk.avg());
+            bucket.setMinDisk(disk.minOrNull());
+            bucket.setMaxDisk(disk.maxOrNull());
+            return bucket;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.optimizer.metrics.rollup;
+
+import java.time.Duration;
+
+public enum RollupTier {
+    MINUTE("metric_rollups_1m", Duration.ofMinutes(1)),
+    HOUR("metric_rollups_1h", Duration.ofHours(1)),
+    DAY("metric_rollups_1d", Duration.ofDays(1));
+
+    private final String collection;
+    private final Duration width;
+
+    RollupTier(String collection, Duration width) {
+        this.collection = collection;
+        this.width = width;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public Duration getWidth() {
+        return width;
+    }
+
+    public long getWidthMillis() {
+        return width.toMillis();
+    }
+}
@@ -1,36 +1,452 @@
 package com.optimizer.metrics.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.optimizer.metrics.ingest.IngestBufferFullException;
+import com.optimizer.metrics.ingest.MetricBulkWriter;
+import com.optimizer.metrics.ingest.MetricWriteBehindBuffer;
 import com.optimizer.metrics.model.Metric;
-import com.optimizer.metrics.repository.MetricRepository;
+import com.optimizer.metrics.model.ResourceInfo;
+import com.optimizer.metrics.registry.ResourceRegistry;
+import com.optimizer.metrics.rollup.MetricRollupService;
+import com.optimizer.metrics.rollup.RollupTier;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.Sort;
+import org.bson.Document;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 public class MetricService {
 
-    @Autowired
-    private MetricRepository metricRepository;
     @Autowired
     private MongoTemplate mongoTemplate;
+    @Autowired
+    private MetricBulkWriter metricBulkWriter;
+    @Autowired
+    private MetricWriteBehindBuffer writeBehindBuffer;
+    @Autowired
+    private MetricRollupService metricRollupService;
+    @Autowired
+    private ResourceRegistry resourceRegistry;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${metrics.ingest.bulk-chunk-size:1000}")
+    private int chunkSize;
+    @Value("${metrics.query.default-limit:1000}")
+    private int defaultLimit;
+    @Value("${metrics.query.max-limit:10000}")
+    private int maxLimit;
+    @Value("${metrics.export.cursor-batch-size:1000}")
+    private int exportBatchSize;
+    @Value("${metrics.rollup.max-buckets:10000}")
+    private int maxRollupBuckets;
+
+    private static final String[] ROLLUP_FIELDS = {"cpu", "memory", "disk"};
+
+    @Data
+    public static class BatchResult {
+        private int received;
+        private int accepted;
+        private int rejected;
+        private boolean throttled;
+        private List<ItemError> errors = new ArrayList<>();
+
+        void reject(int index, String message) {
+            rejected++;
+            errors.add(new ItemError(index, message));
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class MetricPage {
+        private List<Metric> items;
+        private String nextCursor;
+    }
+
+    @Data
+    public static class RollupBucket {
+        private LocalDateTime bucketStart;
+        private long count;
+        private Double avgCpu;
+        private Double minCpu;
+        private Double maxCpu;
+        private Double p95Cpu;
+        private Double avgMemory;
+        private Double minMemory;
+        private Double maxMemory;
+        private Double p95Memory;
+        private Double avgDisk;
+        private Double minDisk;
+        private Double maxDisk;
+        private Double p95Disk;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class ItemError {
+        private int index;
+        private String message;
+    }
 
     public Metric collectMetric(Metric metric) {
         if (metric.getTimestamp() == null) {
             metric.setTimestamp(LocalDateTime.now());
         }
-        return metricRepository.save(metric);
+        if (writeBehindBuffer.isEnabled()) {
+            if (!writeBehindBuffer.offer(metric)) {
+                throw new IngestBufferFullException();
+            }
+            return metric;
+        }
+        return metricBulkWriter.save(metric);
+    }
+
+    public MetricWriteBehindBuffer.Stats getIngestStats() {
+        MetricWriteBehindBuffer.Stats stats = writeBehindBuffer.getStats();
+        stats.setRollupRetryBuckets(metricRollupService.getRetryBuckets());
+        stats.setRollupDroppedBuckets(metricRollupService.getDroppedBuckets());
+        return stats;
+    }
+
+    public BatchResult collectMetrics(List<Metric> metrics) {
+        BatchResult result = new BatchResult();
+        Chunk chunk = new Chunk();
+        for (int i = 0; i < metrics.size(); i++) {
+            accept(metrics.get(i), i, chunk, result);
+        }
+        chunk.flush(result);
+        return result;
+    }
+
+    public BatchResult collectNdjson(InputStream in) throws IOException {
+        BatchResult result = new BatchResult();
+        Chunk chunk = new Chunk();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int index = 0;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Metric metric;
+            try {
+                metric = objectMapper.readValue(line, Metric.class);
+            } catch (JsonProcessingException e) {
+                result.setReceived(result.getReceived() + 1);
+                result.reject(index++, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            accept(metric, index++, chunk, result);
+        }
+        chunk.flush(result);
+        return result;
+    }
+
+    /**
+     * Returns one page of samples ordered by (timestamp, id). The cursor is the
+     * opaque position of the last sample of the previous page, so each page is
+     * a bounded range scan on the (resourceId, timestamp, _id) index.
+     */
+    public MetricPage getMetricsByResourceId(String resourceId, LocalDateTime from, LocalDateTime to,
+                                             Integer limit, String cursor) {
+        int pageSize = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+        Criteria criteria = rangeCriteria(resourceId, from, to);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            LocalDateTime after = LocalDateTime.parse(position[0]);
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where("timestamp").gt(after),
+                    new Criteria().andOperator(Criteria.where("timestamp").is(after), Criteria.where("id").gt(position[1]))));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.asc("timestamp"), Sort.Order.asc("id")))
+                .limit(pageSize + 1);
+        List<Metric> items = mongoTemplate.find(query, Metric.class);
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            Metric last = items.get(pageSize - 1);
+            nextCursor = encodeCursor(last);
+        }
+        return new MetricPage(items, nextCursor);
+    }
+
+    /**
+     * Streams every matching sample from a Mongo cursor straight into {@code out},
+     * one NDJSON line (or CSV row) per sample, without materializing the result.
+     */
+    public void exportMetrics(String resourceId, LocalDateTime from, LocalDateTime to, String format,
+                              OutputStream out) throws IOException {
+        Query query = new Query(rangeCriteria(resourceId, from, to))
+                .with(Sort.by(Sort.Order.asc("timestamp"), Sort.Order.asc("id")))
+                .cursorBatchSize(exportBatchSize);
+        try (Stream<Metric> metrics = mongoTemplate.stream(query, Metric.class)) {
+            if ("csv".equalsIgnoreCase(format)) {
+                writeCsv(metrics, out);
+            } else {
+                writeNdjson(metrics, out);
+            }
+        }
+    }
+
+    /**
+     * Downsamples a resource's samples into fixed {@code step} buckets aligned to
+     * the epoch. Unless percentiles are requested, buckets are assembled from the
+     * coarsest pre-aggregated tier that fits {@code step}. The part of the range
+     * the tier does not cover, and any request for percentiles, is computed by
+     * an aggregation pipeline over raw samples, so only the per-bucket
+     * statistics leave the database. p95 is only filled in when
+     * {@code percentiles} is set.
+     */
+    public List<RollupBucket> getRollup(String resourceId, Duration step, LocalDateTime from, LocalDateTime to,
+                                        boolean percentiles) {
+        if (step.toSeconds() < 1) {
+            throw new IllegalArgumentException("step must be at least 1s");
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        if (Duration.between(start, end).dividedBy(step) > maxRollupBuckets) {
+            throw new IllegalArgumentException("Range produces more than " + maxRollupBuckets + " buckets, use a larger step");
+        }
+        RollupTier tier = percentiles ? null : metricRollupService.tierFor(step);
+        if (tier == null) {
+            return aggregateRollup(resourceId, step, start, end, percentiles);
+        }
+        LocalDateTime coveredFrom = metricRollupService.coveredFrom(tier, step);
+        if (!coveredFrom.isAfter(start)) {
+            return metricRollupService.query(resourceId, tier, step, start, end);
+        }
+        List<RollupBucket> buckets = new ArrayList<>(aggregateRollup(resourceId, step, start,
+                coveredFrom.isBefore(end) ? coveredFrom : end, false));
+        if (coveredFrom.isBefore(end)) {
+            buckets.addAll(metricRollupService.query(resourceId, tier, step, coveredFrom, end));
+        }
+        return buckets;
+    }
+
+    private List<RollupBucket> aggregateRollup(String resourceId, Duration step, LocalDateTime start,
+                                               LocalDateTime end, boolean percentiles) {
+        long stepMillis = step.toMillis();
+        Document bucketStart = new Document("$toDate", new Document("$subtract", List.of(
+                new Document("$toLong", "$timestamp"),
+                new Document("$mod", List.of(new Document("$toLong", "$timestamp"), stepMillis)))));
+        Document group = new Document("_id", bucketStart).append("count", new Document("$sum", 1));
+        Document project = new Document("_id", 0).append("bucketStart", "$_id").append("count", 1);
+        for (String field : ROLLUP_FIELDS) {
+            String suffix = Character.toUpperCase(field.charAt(0)) + field.substring(1);
+            group.append("avg" + suffix, new Document("$avg", "$" + field))
+                    .append("min" + suffix, new Document("$min", "$" + field))
+                    .append("max" + suffix, new Document("$max", "$" + field));
+            project.append("avg" + suffix, 1)
+                    .append("min" + suffix, 1)
+                    .append("max" + suffix, 1);
+            if (percentiles) {
+                group.append("p95" + suffix, new Document("$percentile", new Document("input", "$" + field)
+                        .append("p", List.of(0.95))
+                        .append("method", "approximate")));
+                project.append("p95" + suffix, new Document("$arrayElemAt", List.of("$p95" + suffix, 0)));
+            }
+        }
+
+        AggregationOperation groupStage = context -> new Document("$group", group);
+        AggregationOperation projectStage = context -> new Document("$project", project);
+        AggregationOperation sortStage = context -> new Document("$sort", new Document("bucketStart", 1));
+        TypedAggregation<Metric> aggregation = Aggregation.newAggregation(Metric.class,
+                Aggregation.match(rangeCriteria(resourceId, start, end)), groupStage, projectStage, sortStage);
+        return mongoTemplate.aggregate(aggregation, RollupBucket.class).getMappedResults();
+    }
+
+    public List<String> getResourceIds() {
+        return resourceRegistry.getResourceIds();
+    }
+
+    public List<ResourceInfo> getResources() {
+        return resourceRegistry.getResources();
+    }
+
+    private Criteria rangeCriteria(String resourceId, LocalDateTime from, LocalDateTime to) {
+        Criteria criteria = Criteria.where("resourceId").is(resourceId);
+        if (from != null || to != null) {
+            Criteria timestamp = criteria.and("timestamp");
+            if (from != null) {
+                timestamp.gte(from);
+            }
+            if (to != null) {
+                timestamp.lt(to);
+            }
+        }
+        return criteria;
+    }
+
+    private void writeNdjson(Stream<Metric> metrics, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Metric.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        boolean any = false;
+        for (Metric metric : (Iterable<Metric>) metrics::iterator) {
+            writer.writeValue(generator, metric);
+            any = true;
+        }
+        if (any) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private void writeCsv(Stream<Metric> metrics, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write("id,resourceId,timestamp,cpu,memory,disk\n");
+        for (Metric metric : (Iterable<Metric>) metrics::iterator) {
+            writer.write(csvValue(metric.getId()));
+            writer.write(',');
+            writer.write(csvValue(metric.getResourceId()));
+            writer.write(',');
+            writer.write(csvValue(metric.getTimestamp()));
+            writer.write(',');
+            writer.write(csvValue(metric.getCpu()));
+            writer.write(',');
+            writer.write(csvValue(metric.getMemory()));
+            writer.write(',');
+            writer.write(csvValue(metric.getDisk()));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String s = value.toString();
+        if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0) {
+            return '"' + s.replace("\"", "\"\"") + '"';
+        }
+        return s;
+    }
+
+    static String encodeCursor(Metric last) {
+        String position = last.getTimestamp() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] position = decoded.split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private void accept(Metric metric, int index, Chunk chunk, BatchResult result) {
+        result.setReceived(result.getReceived() + 1);
+        String error = validate(metric);
+        if (error != null) {
+            result.reject(index, error);
+            return;
+        }
+        if (metric.getTimestamp() == null) {
+            metric.setTimestamp(LocalDateTime.now());
+        }
+        chunk.add(metric, index);
+        if (chunk.size() >= chunkSize) {
+            chunk.flush(result);
+        }
+    }
+
+    private String validate(Metric metric) {
+        if (metric == null) {
+            return "Sample is null";
+        }
+        if (metric.getResourceId() == null || metric.getResourceId().isBlank()) {
+            return "resourceId is required";
+        }
+        if (!isPercentage(metric.getCpu())) {
+            return "cpu must be between 0 and 100";
+        }
+        if (!isPercentage(metric.getMemory())) {
+            return "memory must be between 0 and 100";
+        }
+        if (!isPercentage(metric.getDisk())) {
+            return "disk must be between 0 and 100";
+        }
+        return null;
     }
 
-    public List<Metric> getMetricsByResourceId(String resourceId) {
-        return metricRepository.findByResourceId(resourceId);
+    private boolean isPercentage(Double value) {
+        return value == null || (value >= 0.0 && value <= 100.0);
     }
 
-    public List<String> getDistinctResourceIds() {
-        return mongoTemplate.findDistinct(new Query(), "resourceId", Metric.class, String.class);
+    /**
+     * Validated samples waiting for the next bulk insert, together with their
+     * position in the original request so write errors can be reported per item.
+     */
+    private class Chunk {
+        private final List<Metric> metrics = new ArrayList<>();
+        private final List<Integer> positions = new ArrayList<>();
+
+        void add(Metric metric, int index) {
+            metrics.add(metric);
+            positions.add(index);
+        }
+
+        int size() {
+            return metrics.size();
+        }
+
+        void flush(BatchResult result) {
+            if (metrics.isEmpty()) {
+                return;
+            }
+            Map<Integer, String> failures;
+            if (writeBehindBuffer.isEnabled()) {
+                failures = writeBehindBuffer.offerAll(metrics);
+                result.setThrottled(result.isThrottled() || !failures.isEmpty());
+            } else {
+                failures = metricBulkWriter.insert(metrics);
+            }
+            failures.forEach((i, message) -> result.reject(positions.get(i), message));
+            result.setAccepted(result.getAccepted() + metrics.size() - failures.size());
+            metrics.clear();
+            positions.clear();
+        }
     }
 }
@@ -0,0 +1,37 @@
+package com.optimizer.metrics.service;
+
+import com.optimizer.metrics.model.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MetricServiceTest {
+
+    @Test
+    void cursorRoundTrips() {
+        Metric last = new Metric();
+        last.setId("65f1c0ffee0000000000abcd");
+        last.setTimestamp(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000));
+
+        String cursor = MetricService.encodeCursor(last);
+
+        assertArrayEquals(new String[]{"2024-03-01T12:30:15.123", "65f1c0ffee0000000000abcd"},
+                MetricService.decodeCursor(cursor));
+    }
+
+    @Test
+    void rejectsInvalidCursors() {
+        assertThrows(IllegalArgumentException.class, () -> MetricService.decodeCursor("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> MetricService.decodeCursor(encode("2024-03-01T12:30:15")));
+        assertThrows(IllegalArgumentException.class, () -> MetricService.decodeCursor(encode("yesterday|65f1")));
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,140 @@
+package com.optimizer.engine.analysis;
+
+import com.optimizer.engine.dto.UsageData;
+import com.optimizer.engine.model.UsageAggregate;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Single-pass usage statistics for one resource, computing the same fields as
+ * the Python {@code UsageAnalyzer.analyze_usage}: missing values are skipped
+ * and every sample with cpu below {@link #IDLE_CPU_THRESHOLD} counts as one
+ * idle hour. Can be seeded from and written back to a {@link UsageAggregate}
+ * to continue from a previous run.
+ */
+public class UsageAccumulator {
+
+    public static final double IDLE_CPU_THRESHOLD = 5.0;
+
+    private long samples;
+    private long newSamples;
+    private long cpuCount;
+    private double cpuSum;
+    private double cpuMax = Double.NEGATIVE_INFINITY;
+    private long memoryCount;
+    private double memorySum;
+    private double memoryMax = Double.NEGATIVE_INFINITY;
+    private long diskCount;
+    private double diskSum;
+    private long idleSamples;
+    private LocalDateTime watermark;
+
+    public UsageAccumulator() {
+    }
+
+    public UsageAccumulator(UsageAggregate aggregate) {
+        samples = aggregate.getSampleCount();
+        cpuCount = aggregate.getCpuCount();
+        cpuSum = aggregate.getCpuSum();
+        cpuMax = aggregate.getCpuMax() != null ? aggregate.getCpuMax() : Double.NEGATIVE_INFINITY;
+        memoryCount = aggregate.getMemoryCount();
+        memorySum = aggregate.getMemorySum();
+        memoryMax = aggregate.getMemoryMax() != null ? aggregate.getMemoryMax() : Double.NEGATIVE_INFINITY;
+        diskCount = aggregate.getDiskCount();
+        diskSum = aggregate.getDiskSum();
+        idleSamples = aggregate.getIdleSamples();
+        watermark = aggregate.getWatermark();
+    }
+
+    public void add(Document metric) {
+        LocalDateTime timestamp = metric.get("timestamp") instanceof Date date
+                ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())
+                : null;
+        add(toDouble(metric.get("cpu")), toDouble(metric.get("memory")), toDouble(metric.get("disk")), timestamp);
+    }
+
+    public void add(Double cpu, Double memory, Double disk, LocalDateTime timestamp) {
+        samples++;
+        newSamples++;
+        if (cpu != null) {
+            cpuCount++;
+            cpuSum += cpu;
+            cpuMax = Math.max(cpuMax, cpu);
+            if (cpu < IDLE_CPU_THRESHOLD) {
+                idleSamples++;
+            }
+        }
+        if (memory != null) {
+            memoryCount++;
+            memorySum += memory;
+            memoryMax = Math.max(memoryMax, memory);
+        }
+        if (disk != null) {
+            diskCount++;
+            diskSum += disk;
+        }
+        if (timestamp != null && (watermark == null || timestamp.isAfter(watermark))) {
+            watermark = timestamp;
+        }
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public long getNewSamples() {
+        return newSamples;
+    }
+
+    public LocalDateTime getWatermark() {
+        return watermark;
+    }
+
+    public void writeTo(UsageAggregate aggregate) {
+        aggregate.setSampleCount(samples);
+        aggregate.setCpuCount(cpuCount);
+        aggregate.setCpuSum(cpuSum);
+        aggregate.setCpuMax(cpuCount > 0 ? cpuMax : null);
+        aggregate.setMemoryCount(memoryCount);
+        aggregate.setMemorySum(memorySum);
+        aggregate.setMemoryMax(memoryCount > 0 ? memoryMax : null);
+        aggregate.setDiskCount(diskCount);
+        aggregate.setDiskSum(diskSum);
+        aggregate.setIdleSamples(idleSamples);
+        aggregate.setWatermark(watermark);
+    }
+
+    private static Double toDouble(Object value) {
+        return value instanceof Number n ? n.doubleValue() : null;
+    }
+
+    public UsageData toUsageData(String resourceId) {
+        return toUsageData(resourceId, null);
+    }
+
+    /**
+     * Like {@link #toUsageData(String)}, but also counts every whole hour
+     * between the last sample and {@code asOf} as idle, so a resource that
+     * stopped reporting drifts towards the idle rule instead of keeping the
+     * usage it had when it went quiet.
+     */
+    public UsageData toUsageData(String resourceId, LocalDateTime asOf) {
+        long idleHours = idleSamples;
+        if (asOf != null && watermark != null && asOf.isAfter(watermark)) {
+            idleHours += Duration.between(watermark, asOf).toHours();
+        }
+        UsageData usage = new UsageData();
+        usage.setResourceId(resourceId);
+        usage.setAvgCpu(cpuCount > 0 ? cpuSum / cpuCount : null);
+        usage.setMaxCpu(cpuCount > 0 ? cpuMax : null);
+        usage.setAvgMemory(memoryCount > 0 ? memorySum / memoryCount : null);
+        usage.setMaxMemory(memoryCount > 0 ? memoryMax : null);
+        usage.setAvgDisk(diskCount > 0 ? diskSum / diskCount : null);
+        usage.setIdleHours((int) Math.min(idleHours, Integer.MAX_VALUE));
+        return usage;
+    }
+}
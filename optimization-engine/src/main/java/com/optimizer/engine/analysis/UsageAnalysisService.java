@@ -0,0 +1,251 @@
+package com.optimizer.engine.analysis;
+
+import com.optimizer.engine.dto.UsageData;
+import com.optimizer.engine.model.UsageAggregate;
+import com.optimizer.engine.repository.UsageAggregateRepository;
+import com.optimizer.engine.service.OptimizationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Java replacement for the Python usage-analysis job. Each resource's samples
+ * are streamed from a Mongo cursor into a {@link UsageAccumulator}, so memory
+ * stays constant per resource, and resources are analyzed in parallel. The
+ * results are then evaluated by {@link OptimizationService} in one batch.
+ *
+ * <p>By default runs are incremental: running totals are persisted per
+ * resource in {@link UsageAggregate} together with a high-water-mark, and
+ * each run only reads samples newer than it. Samples younger than
+ * {@code analysis.watermark-lag} are left for the next run so late writes
+ * (e.g. from the collector's write-behind buffer) are not skipped. Every
+ * stored aggregate is re-evaluated on each run, not just those that received
+ * samples, and the hours since a resource's last sample count as idle, so a
+ * resource that stops reporting still reaches the idle rule.
+ *
+ * <p>Late data is not folded in: a sample that arrives more than
+ * {@code analysis.watermark-lag} after its timestamp is at or below the
+ * watermark by then and is never added to the running totals. Raise the lag
+ * for sources that backfill, or use a windowed run, which rescans the whole
+ * period and so includes late samples.
+ *
+ * <p>Passing a window instead analyzes only that trailing period, without
+ * touching the running totals; only resources with samples in the window are
+ * evaluated.
+ */
+@Slf4j
+@Service
+public class UsageAnalysisService {
+
+    private static final String METRICS_COLLECTION = "metrics";
+    private static final String RESOURCES_COLLECTION = "resources";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private OptimizationService optimizationService;
+    @Autowired
+    private UsageAggregateRepository usageAggregateRepository;
+
+    @Value("${analysis.enabled:false}")
+    private boolean enabled;
+    @Value("${analysis.parallelism:4}")
+    private int parallelism;
+    @Value("${analysis.cursor-batch-size:1000}")
+    private int cursorBatchSize;
+    @Value("${analysis.watermark-lag:PT2M}")
+    private Duration watermarkLag;
+
+    private ExecutorService executor;
+    private volatile AnalysisRun lastRun;
+
+    @Data
+    public static class AnalysisRun {
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private String mode;
+        private int resources;
+        private long samples;
+        private int recommendations;
+        private int failures;
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.interval:PT1H}", initialDelayString = "${analysis.initial-delay:PT5M}")
+    public void scheduledRun() {
+        if (enabled) {
+            run(null);
+        }
+    }
+
+    /**
+     * Runs one analysis cycle. With a {@code window}, analyzes only samples from
+     * that trailing period; otherwise continues each resource's running totals
+     * from its watermark.
+     */
+    public synchronized AnalysisRun run(Duration window) {
+        AnalysisRun run = new AnalysisRun();
+        run.setStartedAt(LocalDateTime.now());
+        run.setMode(window == null ? "INCREMENTAL" : "WINDOW " + window);
+        LocalDateTime upTo = run.getStartedAt().minus(watermarkLag);
+        LocalDateTime windowStart = window == null ? null : run.getStartedAt().minus(window);
+
+        List<String> resourceIds = listResourceIds();
+        // All stored aggregates, not only the registered ones, so resources that
+        // dropped out of the registry keep being evaluated until they look idle.
+        Map<String, UsageAggregate> aggregates = new ConcurrentHashMap<>();
+        if (window == null) {
+            usageAggregateRepository.findAll()
+                    .forEach(aggregate -> aggregates.put(aggregate.getResourceId(), aggregate));
+        }
+        ConcurrentLinkedQueue<UsageAggregate> updated = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<UsageData> usages = new ConcurrentLinkedQueue<>();
+        AtomicLong samples = new AtomicLong();
+        AtomicInteger failures = new AtomicInteger();
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(resourceIds.size());
+        for (String resourceId : resourceIds) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    UsageAccumulator acc;
+                    if (window != null) {
+                        acc = new UsageAccumulator();
+                        scan(resourceId, windowStart, false, upTo, acc);
+                    } else {
+                        UsageAggregate aggregate = aggregates.get(resourceId);
+                        if (aggregate == null) {
+                            aggregate = new UsageAggregate();
+                            aggregate.setResourceId(resourceId);
+                        }
+                        acc = new UsageAccumulator(aggregate);
+                        scan(resourceId, aggregate.getWatermark(), true, upTo, acc);
+                        if (acc.getNewSamples() > 0) {
+                            acc.writeTo(aggregate);
+                            aggregate.setUpdatedAt(LocalDateTime.now());
+                            aggregates.put(resourceId, aggregate);
+                            updated.add(aggregate);
+                        }
+                    }
+                    samples.addAndGet(acc.getNewSamples());
+                    if (window != null && acc.getNewSamples() > 0) {
+                        usages.add(acc.toUsageData(resourceId, upTo));
+                    }
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    log.warn("Usage analysis failed for {}: {}", resourceId, e.getMessage());
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        if (!updated.isEmpty()) {
+            usageAggregateRepository.saveAll(updated);
+        }
+        for (UsageAggregate aggregate : aggregates.values()) {
+            if (aggregate.getSampleCount() > 0) {
+                usages.add(new UsageAccumulator(aggregate).toUsageData(aggregate.getResourceId(), upTo));
+            }
+        }
+        int recommendations = usages.isEmpty() ? 0
+                : optimizationService.generateRecommendations(new ArrayList<>(usages)).getRecommended();
+
+        run.setResources(window == null ? aggregates.size() : resourceIds.size());
+        run.setSamples(samples.get());
+        run.setRecommendations(recommendations);
+        run.setFailures(failures.get());
+        run.setFinishedAt(LocalDateTime.now());
+        lastRun = run;
+        log.info("Usage analysis ({}) finished: {} resources, {} samples, {} recommendations, {} failures",
+                run.getMode(), run.getResources(), run.getSamples(), run.getRecommendations(), run.getFailures());
+        return run;
+    }
+
+    public AnalysisRun getLastRun() {
+        return lastRun;
+    }
+
+    /**
+     * Returns the running totals for a resource as of its last incremental run,
+     * or a one-off scan of the trailing {@code window} when one is given.
+     */
+    public UsageData analyzeResource(String resourceId, Duration window) {
+        if (window != null) {
+            UsageAccumulator acc = new UsageAccumulator();
+            scan(resourceId, LocalDateTime.now().minus(window), false, null, acc);
+            return acc.toUsageData(resourceId);
+        }
+        return usageAggregateRepository.findById(resourceId)
+                .map(aggregate -> new UsageAccumulator(aggregate).toUsageData(resourceId, LocalDateTime.now()))
+                .orElse(null);
+    }
+
+    private void scan(String resourceId, LocalDateTime from, boolean exclusive, LocalDateTime to, UsageAccumulator acc) {
+        Criteria criteria = Criteria.where("resourceId").is(resourceId);
+        if (from != null || to != null) {
+            Criteria timestamp = criteria.and("timestamp");
+            if (from != null) {
+                if (exclusive) {
+                    timestamp.gt(from);
+                } else {
+                    timestamp.gte(from);
+                }
+            }
+            if (to != null) {
+                timestamp.lt(to);
+            }
+        }
+        Query query = new Query(criteria).cursorBatchSize(cursorBatchSize);
+        query.fields().include("cpu", "memory", "disk", "timestamp").exclude("_id");
+        try (Stream<Document> metrics = mongoTemplate.stream(query, Document.class, METRICS_COLLECTION)) {
+            metrics.forEach(acc::add);
+        }
+    }
+
+    /**
+     * Reads resource IDs from the registry maintained by the metrics collector,
+     * falling back to a distinct over the metrics collection if it is empty.
+     */
+    private List<String> listResourceIds() {
+        Query query = new Query();
+        query.fields().include("_id");
+        List<String> ids = new ArrayList<>();
+        for (Document doc : mongoTemplate.find(query, Document.class, RESOURCES_COLLECTION)) {
+            ids.add(doc.getString("_id"));
+        }
+        if (ids.isEmpty()) {
+            ids = mongoTemplate.findDistinct(new Query(), "resourceId", METRICS_COLLECTION, String.class);
+        }
+        return ids;
+    }
+}
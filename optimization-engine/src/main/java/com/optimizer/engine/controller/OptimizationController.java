@@ -1,12 +1,24 @@
 package com.optimizer.engine.controller;
 
+import com.optimizer.engine.analysis.UsageAnalysisService;
+import com.optimizer.engine.dto.MetricEvent;
+import com.optimizer.engine.dto.UsageData;
+import com.optimizer.engine.events.RollingUsageTracker;
+import com.optimizer.engine.events.UsageEventBus;
 import com.optimizer.engine.model.Recommendation;
+import com.optimizer.engine.rules.RuleEngine;
 import com.optimizer.engine.service.OptimizationService;
+import com.optimizer.engine.stream.RecommendationStream;
 import com.optimizer.engine.dto.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -14,8 +26,20 @@ import java.util.Map;
 @RequestMapping("/optimize")
 public class OptimizationController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private OptimizationService optimizationService;
+    @Autowired
+    private UsageAnalysisService usageAnalysisService;
+    @Autowired
+    private RuleEngine ruleEngine;
+    @Autowired
+    private UsageEventBus usageEventBus;
+    @Autowired
+    private RollingUsageTracker rollingUsageTracker;
+    @Autowired
+    private RecommendationStream recommendationStream;
 
     @PostMapping("/analyze")
     public ResponseEntity<ApiResponse> analyze(@RequestBody Map<String, Object> usageData) {
@@ -23,14 +47,107 @@ public class OptimizationController {
         return ResponseEntity.ok(ApiResponse.success(rec));
     }
 
+    @PostMapping("/analyze/batch")
+    public ResponseEntity<ApiResponse> analyzeBatch(@RequestBody List<UsageData> usageData) {
+        return ResponseEntity.ok(ApiResponse.success(optimizationService.generateRecommendations(usageData)));
+    }
+
+    @PostMapping("/events")
+    public ResponseEntity<ApiResponse> events(@RequestBody List<MetricEvent> events) {
+        int accepted = usageEventBus.publish(events);
+        return ResponseEntity.accepted().body(ApiResponse.success(Map.of(
+                "received", events.size(), "accepted", accepted, "dropped", events.size() - accepted)));
+    }
+
+    @GetMapping("/events/stats")
+    public ResponseEntity<ApiResponse> eventStats() {
+        return ResponseEntity.ok(ApiResponse.success(Map.of(
+                "bus", usageEventBus.getStats(), "tracker", rollingUsageTracker.getStats())));
+    }
+
+    @GetMapping("/rules")
+    public ResponseEntity<ApiResponse> rules() {
+        return ResponseEntity.ok(ApiResponse.success(ruleEngine.getStatus()));
+    }
+
+    @PostMapping("/rules/reload")
+    public ResponseEntity<ApiResponse> reloadRules() throws IOException {
+        return ResponseEntity.ok(ApiResponse.success(ruleEngine.reload()));
+    }
+
+    @PostMapping("/analysis/run")
+    public ResponseEntity<ApiResponse> runAnalysis(@RequestParam(required = false) Duration window) {
+        return ResponseEntity.ok(ApiResponse.success(usageAnalysisService.run(window)));
+    }
+
+    @GetMapping("/analysis/last")
+    public ResponseEntity<ApiResponse> lastAnalysis() {
+        return ResponseEntity.ok(ApiResponse.success(usageAnalysisService.getLastRun()));
+    }
+
+    @GetMapping("/analysis/{resourceId}")
+    public ResponseEntity<ApiResponse> analyzeResource(@PathVariable String resourceId,
+                                                       @RequestParam(required = false) Duration window) {
+        return ResponseEntity.ok(ApiResponse.success(usageAnalysisService.analyzeResource(resourceId, window)));
+    }
+
+    @GetMapping("/recommendations")
+    public ResponseEntity<ApiResponse> listRecommendations(@RequestParam(required = false) String status,
+                                                           @RequestParam(required = false) String type,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String cursor,
+                                                           WebRequest request) {
+        if (request.checkNotModified(recommendationStream.etag())) {
+            return null;
+        }
+        return page(optimizationService.getRecommendations(null, status, type, limit, cursor));
+    }
+
     @GetMapping("/{resourceId}")
-    public ResponseEntity<ApiResponse> getRecommendations(@PathVariable String resourceId) {
-        List<Recommendation> list = optimizationService.getRecommendations(resourceId);
-        return ResponseEntity.ok(ApiResponse.success(list));
+    public ResponseEntity<ApiResponse> getRecommendations(@PathVariable String resourceId,
+                                                          @RequestParam(required = false) String status,
+                                                          @RequestParam(required = false) String type,
+                                                          @RequestParam(required = false) Integer limit,
+                                                          @RequestParam(required = false) String cursor,
+                                                          WebRequest request) {
+        if (request.checkNotModified(recommendationStream.etag())) {
+            return null;
+        }
+        return page(optimizationService.getRecommendations(resourceId, status, type, limit, cursor));
     }
 
+    /**
+     * The ETag is taken before the read, so a write that commits in between
+     * can only make the client fetch again, never miss an update.
+     */
     @GetMapping("/latest")
-    public ResponseEntity<ApiResponse> latest() {
+    public ResponseEntity<ApiResponse> latest(WebRequest request) {
+        if (request.checkNotModified(recommendationStream.etag())) {
+            return null;
+        }
         return ResponseEntity.ok(ApiResponse.success(optimizationService.getLatest()));
     }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return recommendationStream.subscribe();
+    }
+
+    @GetMapping("/stream/stats")
+    public ResponseEntity<ApiResponse> streamStats() {
+        return ResponseEntity.ok(ApiResponse.success(recommendationStream.getStats()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+    }
+
+    private ResponseEntity<ApiResponse> page(OptimizationService.RecommendationPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(ApiResponse.success(page.getItems()));
+    }
 }
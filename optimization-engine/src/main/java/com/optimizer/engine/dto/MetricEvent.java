@@ -0,0 +1,13 @@
+package com.optimizer.engine.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class MetricEvent {
+    private String resourceId;
+    private LocalDateTime timestamp;
+    private Double cpu;
+    private Double memory;
+    private Double disk;
+}
@@ -0,0 +1,14 @@
+package com.optimizer.engine.dto;
+
+import lombok.Data;
+
+@Data
+public class UsageData {
+    private String resourceId;
+    private Double avgCpu;
+    private Double maxCpu;
+    private Double avgMemory;
+    private Double maxMemory;
+    private Double avgDisk;
+    private Integer idleHours;
+}
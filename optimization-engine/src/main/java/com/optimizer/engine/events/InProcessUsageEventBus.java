@@ -0,0 +1,120 @@
+package com.optimizer.engine.events;
+
+import com.optimizer.engine.dto.MetricEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link UsageEventBus} backed by a bounded queue. A single dispatcher thread
+ * drains up to {@code batch-size} events at a time and hands them to every
+ * handler in order.
+ */
+@Slf4j
+@Component
+public class InProcessUsageEventBus implements UsageEventBus {
+
+    @Value("${events.capacity:50000}")
+    private int capacity;
+    @Value("${events.batch-size:500}")
+    private int batchSize;
+
+    private final List<UsageEventHandler> handlers = new CopyOnWriteArrayList<>();
+    private BlockingQueue<MetricEvent> queue;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong handlerFailures = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        dispatcher = new Thread(this::run, "usage-event-bus");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Override
+    public int publish(List<MetricEvent> events) {
+        int accepted = 0;
+        for (MetricEvent event : events) {
+            if (queue.offer(event)) {
+                accepted++;
+            }
+        }
+        published.addAndGet(accepted);
+        dropped.addAndGet(events.size() - accepted);
+        return accepted;
+    }
+
+    @Override
+    public void subscribe(UsageEventHandler handler) {
+        handlers.add(handler);
+    }
+
+    @Override
+    public Stats getStats() {
+        Stats s = new Stats();
+        s.setDepth(queue.size());
+        s.setCapacity(capacity);
+        s.setPublished(published.get());
+        s.setDropped(dropped.get());
+        s.setDelivered(delivered.get());
+        s.setHandlerFailures(handlerFailures.get());
+        return s;
+    }
+
+    private void run() {
+        List<MetricEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                MetricEvent first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                dispatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<MetricEvent> batch) {
+        for (UsageEventHandler handler : handlers) {
+            try {
+                handler.onEvents(batch);
+            } catch (RuntimeException e) {
+                handlerFailures.incrementAndGet();
+                log.warn("Usage event handler {} failed on {} events: {}",
+                        handler.getClass().getSimpleName(), batch.size(), e.getMessage());
+            }
+        }
+        delivered.addAndGet(batch.size());
+    }
+}
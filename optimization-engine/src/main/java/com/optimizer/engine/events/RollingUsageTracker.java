@@ -0,0 +1,185 @@
+package com.optimizer.engine.events;
+
+import com.optimizer.engine.analysis.UsageAccumulator;
+import com.optimizer.engine.dto.MetricEvent;
+import com.optimizer.engine.dto.UsageData;
+import com.optimizer.engine.model.UsageAggregate;
+import com.optimizer.engine.repository.UsageAggregateRepository;
+import com.optimizer.engine.rules.CompiledRuleSet;
+import com.optimizer.engine.rules.Feature;
+import com.optimizer.engine.rules.RuleEngine;
+import com.optimizer.engine.service.OptimizationService;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps each resource's usage features up to date from the event stream and
+ * re-evaluates the rules per event. A recommendation is only written when the
+ * matched rule changes, i.e. when the resource crosses a rule threshold, so
+ * steady resources cost nothing beyond the in-memory update. The new rule is
+ * only recorded once that write succeeds.
+ *
+ * <p>State for a resource is seeded from its {@link UsageAggregate} the first
+ * time it is seen, so the features continue from the last incremental analysis
+ * rather than from zero. Events at or before the aggregate's watermark are
+ * already counted and are skipped. The tracker never writes the aggregates
+ * back; the scheduled analysis stays their owner. At most
+ * {@code events.max-resources} resources are tracked; the least recently
+ * updated is evicted and reseeded if it reappears.
+ */
+@Slf4j
+@Component
+public class RollingUsageTracker implements UsageEventHandler {
+
+    private static final int NOT_EVALUATED = -2;
+
+    @Autowired
+    private UsageEventBus usageEventBus;
+    @Autowired
+    private UsageAggregateRepository usageAggregateRepository;
+    @Autowired
+    private RuleEngine ruleEngine;
+    @Autowired
+    private OptimizationService optimizationService;
+
+    @Value("${events.min-samples:12}")
+    private long minSamples;
+    @Value("${events.max-resources:100000}")
+    private int maxResources;
+
+    private Map<String, ResourceState> states;
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong thresholdCrossings = new AtomicLong();
+    private final AtomicLong recommendations = new AtomicLong();
+    private volatile int trackedResources;
+
+    private static class ResourceState {
+        private final UsageAccumulator usage;
+        private final LocalDateTime seededUpTo;
+        private int matchedRule = NOT_EVALUATED;
+        private CompiledRuleSet rules;
+
+        private ResourceState(UsageAccumulator usage) {
+            this.usage = usage;
+            this.seededUpTo = usage.getWatermark();
+        }
+    }
+
+    @Data
+    public static class Stats {
+        private int trackedResources;
+        private long events;
+        private long skipped;
+        private long thresholdCrossings;
+        private long recommendations;
+    }
+
+    @PostConstruct
+    public void init() {
+        states = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ResourceState> eldest) {
+                return size() > maxResources;
+            }
+        };
+        usageEventBus.subscribe(this);
+    }
+
+    @Override
+    public void onEvents(List<MetricEvent> batch) {
+        seed(batch);
+        CompiledRuleSet rules = ruleEngine.getActive();
+        Map<String, Integer> crossed = new LinkedHashMap<>();
+        for (MetricEvent event : batch) {
+            ResourceState state = event.getResourceId() != null ? states.get(event.getResourceId()) : null;
+            if (state == null || (event.getTimestamp() != null && state.seededUpTo != null
+                    && !event.getTimestamp().isAfter(state.seededUpTo))) {
+                skipped.incrementAndGet();
+                continue;
+            }
+            state.usage.add(event.getCpu(), event.getMemory(), event.getDisk(), event.getTimestamp());
+            if (state.usage.getSamples() < minSamples) {
+                continue;
+            }
+            int rule = rules.match(Feature.extract(state.usage.toUsageData(event.getResourceId())));
+            if (rule == state.matchedRule && rules == state.rules) {
+                crossed.remove(event.getResourceId());
+            } else if (rule >= 0) {
+                crossed.put(event.getResourceId(), rule);
+            } else {
+                // Nothing to write when no rule matches.
+                crossed.remove(event.getResourceId());
+                state.matchedRule = rule;
+                state.rules = rules;
+            }
+        }
+        events.addAndGet(batch.size());
+        trackedResources = states.size();
+        if (crossed.isEmpty()) {
+            return;
+        }
+        thresholdCrossings.addAndGet(crossed.size());
+        List<UsageData> usages = new ArrayList<>(crossed.size());
+        for (String resourceId : crossed.keySet()) {
+            usages.add(states.get(resourceId).usage.toUsageData(resourceId));
+        }
+        recommendations.addAndGet(optimizationService.generateRecommendations(usages).getRecommended());
+        // Only remember the new rule once its recommendation is written, so a
+        // failed write is retried on the resource's next event.
+        for (Map.Entry<String, Integer> entry : crossed.entrySet()) {
+            ResourceState state = states.get(entry.getKey());
+            if (state != null) {
+                state.matchedRule = entry.getValue();
+                state.rules = rules;
+            }
+        }
+        log.debug("{} resources crossed a rule threshold", crossed.size());
+    }
+
+    public Stats getStats() {
+        Stats s = new Stats();
+        s.setTrackedResources(trackedResources);
+        s.setEvents(events.get());
+        s.setSkipped(skipped.get());
+        s.setThresholdCrossings(thresholdCrossings.get());
+        s.setRecommendations(recommendations.get());
+        return s;
+    }
+
+    /**
+     * Creates state for the batch's unseen resources with one aggregate lookup.
+     */
+    private void seed(List<MetricEvent> batch) {
+        Set<String> unseen = new HashSet<>();
+        for (MetricEvent event : batch) {
+            if (event.getResourceId() != null && !states.containsKey(event.getResourceId())) {
+                unseen.add(event.getResourceId());
+            }
+        }
+        if (unseen.isEmpty()) {
+            return;
+        }
+        for (UsageAggregate aggregate : usageAggregateRepository.findAllById(unseen)) {
+            states.put(aggregate.getResourceId(), new ResourceState(new UsageAccumulator(aggregate)));
+            unseen.remove(aggregate.getResourceId());
+        }
+        for (String resourceId : unseen) {
+            states.put(resourceId, new ResourceState(new UsageAccumulator()));
+        }
+    }
+}
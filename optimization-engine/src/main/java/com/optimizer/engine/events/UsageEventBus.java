@@ -0,0 +1,35 @@
+package com.optimizer.engine.events;
+
+import com.optimizer.engine.dto.MetricEvent;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Stream of ingested metric samples between the collector and the
+ * recommendation pipeline. {@link InProcessUsageEventBus} keeps it in memory;
+ * a broker-backed implementation (e.g. Kafka) can replace it without touching
+ * publishers or handlers.
+ */
+public interface UsageEventBus {
+
+    /**
+     * Enqueues the events without blocking and returns how many were accepted.
+     * Events that do not fit are dropped.
+     */
+    int publish(List<MetricEvent> events);
+
+    void subscribe(UsageEventHandler handler);
+
+    Stats getStats();
+
+    @Data
+    class Stats {
+        private int depth;
+        private int capacity;
+        private long published;
+        private long dropped;
+        private long delivered;
+        private long handlerFailures;
+    }
+}
@@ -0,0 +1,13 @@
+package com.optimizer.engine.events;
+
+import com.optimizer.engine.dto.MetricEvent;
+
+import java.util.List;
+
+/**
+ * Subscriber of a {@link UsageEventBus}. Batches are delivered in publish order
+ * from a single thread, so implementations need no locking of their own.
+ */
+public interface UsageEventHandler {
+    void onEvents(List<MetricEvent> events);
+}
@@ -6,16 +6,24 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "recommendations")
+@Table(name = "recommendations",
+        indexes = {
+                @Index(name = "idx_recommendations_resource_created", columnList = "resource_id, created_at"),
+                @Index(name = "idx_recommendations_created_at", columnList = "created_at")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_recommendations_pending_key", columnNames = "pending_key"))
 public class Recommendation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recommendation_seq")
+    @SequenceGenerator(name = "recommendation_seq", sequenceName = "recommendations_seq", allocationSize = 50)
     private Long id;
     
     private String resourceId;
     private String recommendationType; // DOWNSCALE, UPSCALE, TERMINATE
     private String description;
     private LocalDateTime createdAt;
-    private String status; // PENDING, APPLIED, IGNORED
+    private LocalDateTime updatedAt;
+    private String status; // PENDING, APPLIED, IGNORED, SUPERSEDED
     private Double confidence; // 0.0 - 1.0
+    private String pendingKey; // resourceId|recommendationType while PENDING, otherwise null
 }
@@ -0,0 +1,29 @@
+package com.optimizer.engine.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Running usage totals for one resource over every sample up to
+ * {@code watermark}, so each analysis run only has to read newer samples.
+ */
+@Data
+@Entity
+@Table(name = "usage_aggregates")
+public class UsageAggregate {
+    @Id
+    private String resourceId;
+    private long sampleCount;
+    private long cpuCount;
+    private double cpuSum;
+    private Double cpuMax;
+    private long memoryCount;
+    private double memorySum;
+    private Double memoryMax;
+    private long diskCount;
+    private double diskSum;
+    private long idleSamples;
+    private LocalDateTime watermark;
+    private LocalDateTime updatedAt;
+}
@@ -1,13 +1,51 @@
 package com.optimizer.engine.repository;
 
 import com.optimizer.engine.model.Recommendation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface RecommendationRepository extends JpaRepository<Recommendation, Long> {
-    List<Recommendation> findByResourceId(String resourceId);
-    Recommendation findTopByOrderByCreatedAtDesc();
+    Recommendation findTopByOrderByCreatedAtDescIdDesc();
+    List<Recommendation> findByStatusAndResourceIdIn(String status, Collection<String> resourceIds);
+
+    /**
+     * Newest-first keyset page of one resource's recommendations. Pass a null
+     * {@code beforeCreatedAt} for the first page.
+     */
+    @Query("SELECT r FROM Recommendation r WHERE r.resourceId = :resourceId"
+            + " AND (:status IS NULL OR r.status = :status)"
+            + " AND (:type IS NULL OR r.recommendationType = :type)"
+            + " AND (:beforeCreatedAt IS NULL OR r.createdAt < :beforeCreatedAt"
+            + " OR (r.createdAt = :beforeCreatedAt AND r.id < :beforeId))"
+            + " ORDER BY r.createdAt DESC, r.id DESC")
+    List<Recommendation> findPageByResourceId(@Param("resourceId") String resourceId,
+                                              @Param("status") String status,
+                                              @Param("type") String type,
+                                              @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                              @Param("beforeId") Long beforeId,
+                                              Pageable pageable);
+
+    @Query("SELECT r FROM Recommendation r WHERE (:status IS NULL OR r.status = :status)"
+            + " AND (:type IS NULL OR r.recommendationType = :type)"
+            + " AND (:beforeCreatedAt IS NULL OR r.createdAt < :beforeCreatedAt"
+            + " OR (r.createdAt = :beforeCreatedAt AND r.id < :beforeId))"
+            + " ORDER BY r.createdAt DESC, r.id DESC")
+    List<Recommendation> findPage(@Param("status") String status,
+                                  @Param("type") String type,
+                                  @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                  @Param("beforeId") Long beforeId,
+                                  Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Recommendation r WHERE r.status = :status AND r.updatedAt < :before")
+    int deleteByStatusUpdatedBefore(@Param("status") String status, @Param("before") LocalDateTime before);
 }
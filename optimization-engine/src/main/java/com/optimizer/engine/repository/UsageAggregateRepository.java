@@ -0,0 +1,9 @@
+package com.optimizer.engine.repository;
+
+import com.optimizer.engine.model.UsageAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UsageAggregateRepository extends JpaRepository<UsageAggregate, String> {
+}
@@ -0,0 +1,149 @@
+package com.optimizer.engine.rules;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Immutable, flattened form of a rule list. Evaluation walks parallel
+ * primitive arrays and returns the index of the first matching rule, so it
+ * allocates nothing per call.
+ */
+public final class CompiledRuleSet {
+
+    private static final int LT = 0;
+    private static final int LE = 1;
+    private static final int GT = 2;
+    private static final int GE = 3;
+
+    private final String source;
+    private final LocalDateTime loadedAt;
+    private final String[] names;
+    private final int[] features;
+    private final int[] operators;
+    private final double[] thresholds;
+    private final String[] types;
+    private final String[] descriptions;
+    private final double[] confidences;
+    private final AtomicLongArray hits;
+
+    @Data
+    public static class RuleStatus {
+        private String name;
+        private Feature feature;
+        private String operator;
+        private double threshold;
+        private String recommendationType;
+        private double confidence;
+        private long hits;
+    }
+
+    public CompiledRuleSet(List<RuleDefinition> rules, String source) {
+        int n = rules.size();
+        this.source = source;
+        this.loadedAt = LocalDateTime.now();
+        names = new String[n];
+        features = new int[n];
+        operators = new int[n];
+        thresholds = new double[n];
+        types = new String[n];
+        descriptions = new String[n];
+        confidences = new double[n];
+        hits = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++) {
+            RuleDefinition rule = rules.get(i);
+            if (rule.getFeature() == null || rule.getRecommendationType() == null) {
+                throw new IllegalArgumentException("Rule " + rule.getName() + " needs a feature and a recommendationType");
+            }
+            names[i] = rule.getName() != null ? rule.getName() : "rule-" + i;
+            features[i] = rule.getFeature().ordinal();
+            operators[i] = parseOperator(rule.getOperator());
+            thresholds[i] = rule.getThreshold();
+            types[i] = rule.getRecommendationType();
+            descriptions[i] = rule.getDescription();
+            confidences[i] = rule.getConfidence();
+        }
+    }
+
+    /**
+     * Returns the index of the first rule matched by {@code vector}, or -1.
+     */
+    public int match(double[] vector) {
+        for (int i = 0; i < thresholds.length; i++) {
+            double v = vector[features[i]];
+            boolean matched;
+            switch (operators[i]) {
+                case LT -> matched = v < thresholds[i];
+                case LE -> matched = v <= thresholds[i];
+                case GT -> matched = v > thresholds[i];
+                default -> matched = v >= thresholds[i];
+            }
+            if (matched) {
+                hits.incrementAndGet(i);
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String getType(int rule) {
+        return types[rule];
+    }
+
+    public String getDescription(int rule) {
+        return descriptions[rule];
+    }
+
+    public double getConfidence(int rule) {
+        return confidences[rule];
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    public List<RuleStatus> getStatus() {
+        List<RuleStatus> status = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            RuleStatus s = new RuleStatus();
+            s.setName(names[i]);
+            s.setFeature(Feature.values()[features[i]]);
+            s.setOperator(formatOperator(operators[i]));
+            s.setThreshold(thresholds[i]);
+            s.setRecommendationType(types[i]);
+            s.setConfidence(confidences[i]);
+            s.setHits(hits.get(i));
+            status.add(s);
+        }
+        return status;
+    }
+
+    private static int parseOperator(String operator) {
+        if (operator == null) {
+            throw new IllegalArgumentException("Rule operator is required");
+        }
+        return switch (operator.trim()) {
+            case "<", "LT" -> LT;
+            case "<=", "LE" -> LE;
+            case ">", "GT" -> GT;
+            case ">=", "GE" -> GE;
+            default -> throw new IllegalArgumentException("Unknown rule operator: " + operator);
+        };
+    }
+
+    private static String formatOperator(int operator) {
+        return switch (operator) {
+            case LT -> "<";
+            case LE -> "<=";
+            case GT -> ">";
+            default -> ">=";
+        };
+    }
+}
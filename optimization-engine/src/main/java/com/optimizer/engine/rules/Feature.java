@@ -0,0 +1,34 @@
+package com.optimizer.engine.rules;
+
+import com.optimizer.engine.dto.UsageData;
+
+/**
+ * Inputs a rule can test. Features are extracted once per evaluation into a
+ * primitive vector indexed by {@link #ordinal()}; missing values become NaN,
+ * which fails every comparison.
+ */
+public enum Feature {
+    IDLE_HOURS,
+    AVG_CPU,
+    MAX_CPU,
+    AVG_MEMORY,
+    MAX_MEMORY,
+    AVG_DISK;
+
+    private static final Feature[] VALUES = values();
+
+    public static double[] extract(UsageData usage) {
+        double[] vector = new double[VALUES.length];
+        vector[IDLE_HOURS.ordinal()] = usage.getIdleHours() != null ? usage.getIdleHours() : Double.NaN;
+        vector[AVG_CPU.ordinal()] = orNaN(usage.getAvgCpu());
+        vector[MAX_CPU.ordinal()] = orNaN(usage.getMaxCpu());
+        vector[AVG_MEMORY.ordinal()] = orNaN(usage.getAvgMemory());
+        vector[MAX_MEMORY.ordinal()] = orNaN(usage.getMaxMemory());
+        vector[AVG_DISK.ordinal()] = orNaN(usage.getAvgDisk());
+        return vector;
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+}
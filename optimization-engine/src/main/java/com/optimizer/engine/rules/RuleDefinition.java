@@ -0,0 +1,14 @@
+package com.optimizer.engine.rules;
+
+import lombok.Data;
+
+@Data
+public class RuleDefinition {
+    private String name;
+    private Feature feature;
+    private String operator; // <, <=, >, >=
+    private double threshold;
+    private String recommendationType; // DOWNSCALE, UPSCALE, TERMINATE
+    private String description;
+    private double confidence;
+}
@@ -0,0 +1,100 @@
+package com.optimizer.engine.rules;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Holds the active {@link CompiledRuleSet}. Rules come from
+ * {@code optimization.rules} or, when configured, from the JSON file at
+ * {@code optimization.rules-file}, which is polled and recompiled when its
+ * modification time changes. A rule set that fails to compile is rejected and
+ * the previous one stays active.
+ */
+@Slf4j
+@Service
+public class RuleEngine {
+
+    @Autowired
+    private RuleProperties ruleProperties;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile CompiledRuleSet active;
+    private volatile long fileModified = -1;
+
+    @Data
+    public static class RuleEngineStatus {
+        private String source;
+        private LocalDateTime loadedAt;
+        private List<CompiledRuleSet.RuleStatus> rules;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        active = load();
+    }
+
+    public CompiledRuleSet getActive() {
+        return active;
+    }
+
+    public synchronized RuleEngineStatus reload() throws IOException {
+        active = load();
+        log.info("Loaded {} recommendation rules from {}", active.getStatus().size(), active.getSource());
+        return getStatus();
+    }
+
+    @Scheduled(fixedDelayString = "${optimization.rules-poll-ms:10000}")
+    public void pollRulesFile() {
+        String file = ruleProperties.getRulesFile();
+        if (file == null || file.isBlank()) {
+            return;
+        }
+        Path path = Path.of(file);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if (modified != fileModified) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Keeping current rules, could not reload {}: {}", file, e.getMessage());
+        }
+    }
+
+    public RuleEngineStatus getStatus() {
+        CompiledRuleSet rules = active;
+        RuleEngineStatus status = new RuleEngineStatus();
+        status.setSource(rules.getSource());
+        status.setLoadedAt(rules.getLoadedAt());
+        status.setRules(rules.getStatus());
+        return status;
+    }
+
+    private CompiledRuleSet load() throws IOException {
+        String file = ruleProperties.getRulesFile();
+        if (file != null && !file.isBlank() && Files.exists(Path.of(file))) {
+            Path path = Path.of(file);
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            List<RuleDefinition> rules = objectMapper.readValue(path.toFile(), new TypeReference<List<RuleDefinition>>() { });
+            CompiledRuleSet compiled = new CompiledRuleSet(rules, file);
+            fileModified = modified;
+            return compiled;
+        }
+        return new CompiledRuleSet(ruleProperties.getRules(), "application configuration");
+    }
+}
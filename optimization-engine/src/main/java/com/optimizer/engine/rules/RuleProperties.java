@@ -0,0 +1,18 @@
+package com.optimizer.engine.rules;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recommendation rules in priority order. When {@code rulesFile} is set, the
+ * JSON rule list in that file takes precedence and is reloaded when it changes.
+ */
+@Data
+@ConfigurationProperties(prefix = "optimization")
+public class RuleProperties {
+    private List<RuleDefinition> rules = new ArrayList<>();
+    private String rulesFile;
+}
@@ -1,56 +1,415 @@
 package com.optimizer.engine.service;
 
+import com.optimizer.engine.dto.UsageData;
 import com.optimizer.engine.model.Recommendation;
 import com.optimizer.engine.repository.RecommendationRepository;
+import com.optimizer.engine.rules.CompiledRuleSet;
+import com.optimizer.engine.rules.Feature;
+import com.optimizer.engine.rules.RuleEngine;
+import com.optimizer.engine.stream.RecommendationStream;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 
+@Slf4j
 @Service
 public class OptimizationService {
 
+    private static final String PENDING = "PENDING";
+    private static final String SUPERSEDED = "SUPERSEDED";
+    private static final String PENDING_KEY_CONSTRAINT = "uk_recommendations_pending_key";
+    private static final Comparator<Recommendation> LATEST_ORDER = Comparator
+            .comparing(Recommendation::getCreatedAt)
+            .thenComparing(Recommendation::getId);
+
     @Autowired
     private RecommendationRepository recommendationRepository;
+    @Autowired
+    private RuleEngine ruleEngine;
+    @Autowired
+    private RecommendationStream recommendationStream;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+    @Value("${optimization.recommendations.max-write-attempts:3}")
+    private int maxWriteAttempts;
+    @Value("${optimization.recommendations.superseded-retention:P30D}")
+    private Duration supersededRetention;
+    @Value("${optimization.query.default-limit:100}")
+    private int defaultLimit;
+    @Value("${optimization.query.max-limit:1000}")
+    private int maxLimit;
+
+    private TransactionTemplate transactionTemplate;
+
+    /** Latest recommendation served to pollers; null until first loaded. */
+    private volatile Optional<Recommendation> latest;
+    private final Object latestLock = new Object();
+
+    @Data
+    @AllArgsConstructor
+    public static class RecommendationPage {
+        private List<Recommendation> items;
+        private String nextCursor;
+    }
+
+    @Data
+    public static class BatchAnalysisResult {
+        private int evaluated;
+        private int recommended;
+        private int inserted;
+        private int updated;
+        private List<Recommendation> recommendations = new ArrayList<>();
+    }
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     public Recommendation generateRecommendation(Map<String, Object> usageData) {
-        String resourceId = (String) usageData.get("resourceId");
-        Double avgCpu = toDouble(usageData.get("avgCpu"));
-        Double avgMemory = toDouble(usageData.get("avgMemory"));
-        Integer idleHours = toInteger(usageData.get("idleHours"));
+        UsageData usage = new UsageData();
+        usage.setResourceId((String) usageData.get("resourceId"));
+        usage.setAvgCpu(toDouble(usageData.get("avgCpu")));
+        usage.setAvgMemory(toDouble(usageData.get("avgMemory")));
+        usage.setIdleHours(toInteger(usageData.get("idleHours")));
+        return generateRecommendation(usage);
+    }
+
+    public Recommendation generateRecommendation(UsageData usage) {
+        return inTransactionWithRetry(() -> {
+            Recommendation candidate = evaluate(usage);
+            if (candidate == null) {
+                return null;
+            }
+            List<Recommendation> changed = new ArrayList<>();
+            Recommendation saved = upsert(candidate, loadPending(List.of(candidate.getResourceId())), changed);
+            entityManager.flush();
+            publishAfterCommit(changed);
+            return saved;
+        });
+    }
+
+    /**
+     * Evaluates every item and upserts the resulting recommendations. Items are
+     * processed in chunks of {@code batchSize}, each in its own transaction: one
+     * query loads the chunk's pending recommendations, and the flush at the end
+     * of the chunk sends the inserts and updates as JDBC batches. If another
+     * writer inserts the same pending key first, only that chunk is rolled back
+     * and retried; the retry sees the other row and refreshes it instead.
+     */
+    public BatchAnalysisResult generateRecommendations(List<UsageData> usages) {
+        BatchAnalysisResult result = new BatchAnalysisResult();
+        result.setEvaluated(usages.size());
+        for (int from = 0; from < usages.size(); from += batchSize) {
+            List<UsageData> chunk = usages.subList(from, Math.min(from + batchSize, usages.size()));
+            BatchAnalysisResult written = inTransactionWithRetry(() -> writeChunk(chunk));
+            result.setInserted(result.getInserted() + written.getInserted());
+            result.setUpdated(result.getUpdated() + written.getUpdated());
+            result.getRecommendations().addAll(written.getRecommendations());
+        }
+        result.setRecommended(result.getRecommendations().size());
+        return result;
+    }
+
+    private BatchAnalysisResult writeChunk(List<UsageData> chunk) {
+        BatchAnalysisResult written = new BatchAnalysisResult();
+        // One candidate per resource, the last one winning. Hibernate flushes all
+        // inserts before updates, so a second candidate could insert a pending
+        // key that the first one's supersede has not yet released.
+        Map<String, Recommendation> candidates = new LinkedHashMap<>();
+        for (UsageData usage : chunk) {
+            Recommendation candidate = evaluate(usage);
+            if (candidate != null) {
+                candidates.remove(candidate.getResourceId());
+                candidates.put(candidate.getResourceId(), candidate);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return written;
+        }
+        Map<String, List<Recommendation>> pending = loadPending(candidates.keySet());
+        List<Recommendation> changed = new ArrayList<>();
+        for (Recommendation candidate : candidates.values()) {
+            Recommendation saved = upsert(candidate, pending, changed);
+            if (saved == candidate) {
+                written.setInserted(written.getInserted() + 1);
+            } else {
+                written.setUpdated(written.getUpdated() + 1);
+            }
+            written.getRecommendations().add(saved);
+        }
+        entityManager.flush();
+        publishAfterCommit(changed);
+        return written;
+    }
+
+    /**
+     * Runs {@code work} in a new transaction, retrying it up to
+     * {@code optimization.recommendations.max-write-attempts} times when it
+     * loses a race on the unique pending key.
+     */
+    private <T> T inTransactionWithRetry(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (RuntimeException e) {
+                if (!isKeyConflict(e) || attempt >= maxWriteAttempts) {
+                    throw e;
+                }
+                log.debug("Pending recommendation key conflict, retrying (attempt {}): {}", attempt, e.getMessage());
+            }
+        }
+    }
+
+    /** True only for a violation of the pending-key unique constraint; other integrity errors are not retried. */
+    private static boolean isKeyConflict(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve && cve.getConstraintName() != null
+                    && cve.getConstraintName().toLowerCase().contains(PENDING_KEY_CONSTRAINT)) {
+                return true;
+            }
+            if (t instanceof SQLIntegrityConstraintViolationException && t.getMessage() != null
+                    && t.getMessage().toLowerCase().contains(PENDING_KEY_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void publishAfterCommit(List<Recommendation> changed) {
+        afterCommit(() -> {
+            refreshLatest(changed);
+            recommendationStream.publish(changed);
+        });
+    }
+
+    /**
+     * Deletes superseded recommendations that have not changed for
+     * {@code optimization.recommendations.superseded-retention}.
+     */
+    @Transactional
+    @Scheduled(cron = "${optimization.recommendations.compaction-cron:0 30 3 * * *}")
+    public int compactSuperseded() {
+        int deleted = recommendationRepository.deleteByStatusUpdatedBefore(SUPERSEDED,
+                LocalDateTime.now().minus(supersededRetention));
+        if (deleted > 0) {
+            log.info("Compacted {} superseded recommendations", deleted);
+            afterCommit(() -> {
+                synchronized (latestLock) {
+                    latest = null;
+                }
+                recommendationStream.invalidate();
+            });
+        }
+        return deleted;
+    }
+
+    private Recommendation evaluate(UsageData usage) {
+        if (usage.getResourceId() == null) {
+            return null;
+        }
+        CompiledRuleSet rules = ruleEngine.getActive();
+        int rule = rules.match(Feature.extract(usage));
+        if (rule < 0) {
+            return null;
+        }
 
         Recommendation recommendation = new Recommendation();
-        recommendation.setResourceId(resourceId);
+        recommendation.setResourceId(usage.getResourceId());
         recommendation.setCreatedAt(LocalDateTime.now());
-        recommendation.setStatus("PENDING");
-
-        if (idleHours != null && idleHours > 24 * 14) {
-            recommendation.setRecommendationType("TERMINATE");
-            recommendation.setDescription("Resource idle for more than 14 days.");
-            recommendation.setConfidence(0.95);
-        } else if (avgCpu != null && avgCpu < 20.0) {
-            recommendation.setRecommendationType("DOWNSCALE");
-            recommendation.setDescription("Average CPU usage is below 20%.");
-            recommendation.setConfidence(0.80);
-        } else if (avgMemory != null && avgMemory > 80.0) {
-            recommendation.setRecommendationType("UPSCALE");
-            recommendation.setDescription("Average Memory usage is above 80%.");
-            recommendation.setConfidence(0.70);
-        } else {
-            return null;
+        recommendation.setUpdatedAt(recommendation.getCreatedAt());
+        recommendation.setStatus(PENDING);
+        recommendation.setRecommendationType(rules.getType(rule));
+        recommendation.setDescription(rules.getDescription(rule));
+        recommendation.setConfidence(rules.getConfidence(rule));
+        return recommendation;
+    }
+
+    /**
+     * Loads the PENDING recommendations of the given resources, newest first.
+     */
+    private Map<String, List<Recommendation>> loadPending(Collection<String> resourceIds) {
+        Map<String, List<Recommendation>> pending = new HashMap<>();
+        for (Recommendation r : recommendationRepository.findByStatusAndResourceIdIn(PENDING, resourceIds)) {
+            pending.computeIfAbsent(r.getResourceId(), k -> new ArrayList<>()).add(r);
         }
+        pending.values().forEach(list -> list.sort(
+                Comparator.comparing(Recommendation::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))));
+        return pending;
+    }
 
-        return recommendationRepository.save(recommendation);
+    /**
+     * Keeps at most one PENDING recommendation per resource. A pending one of the
+     * same type is refreshed in place; any other pending ones, including older
+     * duplicates, are marked SUPERSEDED. Returns the refreshed row, or the
+     * persisted candidate if none existed. Every modified row is added to
+     * {@code changed}.
+     */
+    private Recommendation upsert(Recommendation candidate, Map<String, List<Recommendation>> pending,
+                                  List<Recommendation> changed) {
+        List<Recommendation> existing = pending.computeIfAbsent(candidate.getResourceId(), k -> new ArrayList<>());
+        String key = candidate.getResourceId() + "|" + candidate.getRecommendationType();
+        LocalDateTime now = candidate.getCreatedAt();
+        Recommendation kept = null;
+        for (Recommendation r : existing) {
+            if (kept == null && candidate.getRecommendationType().equals(r.getRecommendationType())) {
+                kept = r;
+            } else if (PENDING.equals(r.getStatus())) {
+                r.setStatus(SUPERSEDED);
+                r.setPendingKey(null);
+                r.setUpdatedAt(now);
+                changed.add(r);
+            }
+        }
+        existing.removeIf(r -> !PENDING.equals(r.getStatus()));
+        if (kept != null) {
+            kept.setPendingKey(key);
+            kept.setDescription(candidate.getDescription());
+            kept.setConfidence(candidate.getConfidence());
+            kept.setUpdatedAt(now);
+            changed.add(kept);
+            return kept;
+        }
+        candidate.setPendingKey(key);
+        entityManager.persist(candidate);
+        existing.add(0, candidate);
+        changed.add(candidate);
+        return candidate;
     }
 
-    public List<Recommendation> getRecommendations(String resourceId) {
-        return recommendationRepository.findByResourceId(resourceId);
+    /**
+     * Folds committed changes into the latest snapshot: a changed copy of the
+     * current row replaces it, and a newer row takes its place.
+     */
+    private void refreshLatest(List<Recommendation> changed) {
+        synchronized (latestLock) {
+            if (latest == null) {
+                return;
+            }
+            Recommendation newest = latest.orElse(null);
+            for (Recommendation r : changed) {
+                if (newest == null || r.getId().equals(newest.getId()) || LATEST_ORDER.compare(r, newest) > 0) {
+                    newest = r;
+                }
+            }
+            latest = Optional.ofNullable(newest);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Returns one newest-first page of recommendations, optionally limited to a
+     * resource, status and type. The cursor is the opaque position of the last
+     * row of the previous page, so each page is a range scan on the
+     * (resource_id, created_at) or (created_at) index.
+     */
+    public RecommendationPage getRecommendations(String resourceId, String status, String type,
+                                                 Integer limit, String cursor) {
+        int pageSize = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+        LocalDateTime beforeCreatedAt = null;
+        Long beforeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            beforeCreatedAt = LocalDateTime.parse(position[0]);
+            beforeId = Long.parseLong(position[1]);
+        }
+        PageRequest page = PageRequest.ofSize(pageSize + 1);
+        List<Recommendation> items = resourceId == null
+                ? recommendationRepository.findPage(status, type, beforeCreatedAt, beforeId, page)
+                : recommendationRepository.findPageByResourceId(resourceId, status, type, beforeCreatedAt, beforeId, page);
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            nextCursor = encodeCursor(items.get(pageSize - 1));
+        }
+        return new RecommendationPage(items, nextCursor);
     }
 
+    /**
+     * Returns the most recently created recommendation from memory. MySQL is
+     * only queried for the first read after startup or compaction; writes keep
+     * the snapshot current once they commit.
+     */
     public Recommendation getLatest() {
-        return recommendationRepository.findTopByOrderByCreatedAtDesc();
+        Optional<Recommendation> snapshot = latest;
+        if (snapshot == null) {
+            synchronized (latestLock) {
+                if (latest == null) {
+                    latest = Optional.ofNullable(recommendationRepository.findTopByOrderByCreatedAtDescIdDesc());
+                }
+                snapshot = latest;
+            }
+        }
+        return snapshot.orElse(null);
+    }
+
+    static String encodeCursor(Recommendation last) {
+        String position = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] position = decoded.split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 
     private Double toDouble(Object value) {
@@ -0,0 +1,160 @@
+package com.optimizer.engine.stream;
+
+import com.optimizer.engine.model.Recommendation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pushes committed recommendation writes to Server-Sent Event subscribers
+ * and keeps the version counter behind the recommendation ETags. Events are
+ * sent from one background thread so a slow client never holds up the
+ * writing transaction; if that thread falls behind, batches are dropped and
+ * clients resynchronise with a conditional GET.
+ */
+@Slf4j
+@Component
+public class RecommendationStream {
+
+    @Value("${optimization.stream.timeout:PT30M}")
+    private Duration timeout;
+    @Value("${optimization.stream.max-subscribers:500}")
+    private int maxSubscribers;
+    @Value("${optimization.stream.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private ThreadPoolExecutor sender;
+
+    @Data
+    public static class Stats {
+        private int subscribers;
+        private long version;
+        private long published;
+        private long dropped;
+    }
+
+    @PostConstruct
+    public void start() {
+        sender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "recommendation-stream");
+                    t.setDaemon(true);
+                    return t;
+                },
+                (r, executor) -> dropped.incrementAndGet());
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+
+    /**
+     * Subscribes to {@code recommendation} events. A {@code version} event is
+     * sent first; if it differs from the ETag of the client's last
+     * recommendations GET, the client should refetch.
+     */
+    public SseEmitter subscribe() {
+        if (emitters.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many stream subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        try {
+            emitter.send(SseEmitter.event().name("version").data(etag()));
+        } catch (IOException e) {
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /** Call after the writing transaction commits. */
+    public void publish(List<Recommendation> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        long current = version.incrementAndGet();
+        if (emitters.isEmpty()) {
+            return;
+        }
+        List<Recommendation> batch = List.copyOf(changed);
+        sender.execute(() -> {
+            for (Recommendation recommendation : batch) {
+                broadcast(() -> SseEmitter.event().name("recommendation").id(Long.toString(current))
+                        .data(recommendation, MediaType.APPLICATION_JSON));
+            }
+            published.addAndGet(batch.size());
+        });
+    }
+
+    /** Marks cached responses stale without an event, e.g. after deletes. */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /** Strong ETag for responses derived from the recommendations table. */
+    public String etag() {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    public Stats getStats() {
+        Stats s = new Stats();
+        s.setSubscribers(emitters.size());
+        s.setVersion(version.get());
+        s.setPublished(published.get());
+        s.setDropped(dropped.get());
+        return s;
+    }
+
+    @Scheduled(fixedDelayString = "${optimization.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!emitters.isEmpty()) {
+            sender.execute(() -> broadcast(() -> SseEmitter.event().comment("keepalive")));
+        }
+    }
+
+    /**
+     * Sends a freshly built event to each subscriber. A builder cannot be
+     * shared, because every {@code build()} appends another terminating
+     * newline to it.
+     */
+    private void broadcast(Supplier<SseEmitter.SseEventBuilder> event) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(event.get());
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.optimizer.engine.rules;
+
+import com.optimizer.engine.dto.UsageData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompiledRuleSetTest {
+
+    private static RuleDefinition rule(String name, Feature feature, String operator, double threshold, String type) {
+        RuleDefinition rule = new RuleDefinition();
+        rule.setName(name);
+        rule.setFeature(feature);
+        rule.setOperator(operator);
+        rule.setThreshold(threshold);
+        rule.setRecommendationType(type);
+        rule.setConfidence(0.9);
+        return rule;
+    }
+
+    private static UsageData usage(Integer idleHours, Double avgCpu, Double maxCpu) {
+        UsageData usage = new UsageData();
+        usage.setResourceId("vm-1");
+        usage.setIdleHours(idleHours);
+        usage.setAvgCpu(avgCpu);
+        usage.setMaxCpu(maxCpu);
+        return usage;
+    }
+
+    private final CompiledRuleSet rules = new CompiledRuleSet(List.of(
+            rule("idle", Feature.IDLE_HOURS, ">=", 168, "TERMINATE"),
+            rule("hot", Feature.MAX_CPU, "GT", 90, "UPSCALE"),
+            rule("cold", Feature.AVG_CPU, "<", 20, "DOWNSCALE")), "test");
+
+    @Test
+    void returnsFirstMatchingRule() {
+        assertEquals(0, rules.match(Feature.extract(usage(200, 10.0, 95.0))));
+        assertEquals(1, rules.match(Feature.extract(usage(0, 10.0, 95.0))));
+        assertEquals(2, rules.match(Feature.extract(usage(0, 10.0, 50.0))));
+        assertEquals("DOWNSCALE", rules.getType(2));
+    }
+
+    @Test
+    void comparesAtThresholdByOperator() {
+        assertEquals(0, rules.match(Feature.extract(usage(168, 50.0, 50.0))));
+        assertEquals(-1, rules.match(Feature.extract(usage(0, 20.0, 90.0))));
+    }
+
+    @Test
+    void missingFeaturesNeverMatch() {
+        assertEquals(-1, rules.match(Feature.extract(usage(null, null, null))));
+        assertEquals(1, rules.match(Feature.extract(usage(null, null, 95.0))));
+    }
+
+    @Test
+    void countsHits() {
+        rules.match(Feature.extract(usage(200, 10.0, 95.0)));
+        rules.match(Feature.extract(usage(0, 10.0, 50.0)));
+        rules.match(Feature.extract(usage(0, 10.0, 50.0)));
+
+        List<CompiledRuleSet.RuleStatus> status = rules.getStatus();
+        assertEquals(1, status.get(0).getHits());
+        assertEquals(0, status.get(1).getHits());
+        assertEquals(2, status.get(2).getHits());
+        assertEquals(">", status.get(1).getOperator());
+    }
+
+    @Test
+    void rejectsInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> new CompiledRuleSet(
+                List.of(rule("bad", Feature.AVG_CPU, "=", 1, "DOWNSCALE")), "test"));
+        assertThrows(IllegalArgumentException.class, () -> new CompiledRuleSet(
+                List.of(rule("bad", null, "<", 1, "DOWNSCALE")), "test"));
+    }
+}